@@ -0,0 +1,66 @@
+package io.github.yagato.holodexwrapper;
+
+/**
+ * The classes of Holodex endpoints this client calls, which can be isolated from each other with
+ * {@link HolodexClient#setBulkhead(Endpoint, io.github.yagato.holodexwrapper.concurrent.Bulkhead)}.
+ */
+public enum Endpoint {
+
+    /**
+     * /live and /users/live.
+     */
+    LIVE,
+
+    /**
+     * /videos and /channels/{channelId}/{type}.
+     */
+    VIDEOS,
+
+    /**
+     * /channels and /channels/{channelId}.
+     */
+    CHANNELS,
+
+    /**
+     * /videos/{videoId}.
+     */
+    METADATA,
+
+    /**
+     * /search/videoSearch and /search/commentSearch.
+     */
+    SEARCH;
+
+    private static final String API_PREFIX = "/api/v2/";
+
+    /**
+     * @param path The path of a request URL, e.g. {@code /api/v2/channels/UCxxx/videos}.
+     * @return The class of the endpoint.
+     */
+    public static Endpoint forPath(String path) {
+        String relative = path.startsWith(API_PREFIX) ? path.substring(API_PREFIX.length()) : path;
+
+        if (relative.startsWith("live") || relative.startsWith("users/live")) {
+            return LIVE;
+        }
+
+        if (relative.startsWith("search/")) {
+            return SEARCH;
+        }
+
+        if (relative.startsWith("videos/")) {
+            return METADATA;
+        }
+
+        if (relative.startsWith("channels/") && relative.indexOf('/', "channels/".length()) >= 0) {
+            return VIDEOS;
+        }
+
+        if (relative.startsWith("channels")) {
+            return CHANNELS;
+        }
+
+        return VIDEOS;
+    }
+
+}
@@ -0,0 +1,15 @@
+package io.github.yagato.holodexwrapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+/**
+ * A call to one or more methods of {@link HolodexClient}, see
+ * {@link HolodexClient#call(io.github.yagato.holodexwrapper.http.RequestOptions, HolodexCall)}.
+ */
+@FunctionalInterface
+public interface HolodexCall<T> {
+
+    T call() throws UnirestException, JsonProcessingException;
+
+}
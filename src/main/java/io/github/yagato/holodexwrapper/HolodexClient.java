@@ -1,461 +1,1916 @@
 package io.github.yagato.holodexwrapper;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import io.github.yagato.holodexwrapper.cache.CacheEntry;
+import io.github.yagato.holodexwrapper.cache.CacheKeys;
+import io.github.yagato.holodexwrapper.cache.CachePolicy;
+import io.github.yagato.holodexwrapper.cache.HolodexCache;
+import io.github.yagato.holodexwrapper.cache.MemoryBudget;
+import io.github.yagato.holodexwrapper.concurrent.Bulkhead;
+import io.github.yagato.holodexwrapper.concurrent.FairShareLimiter;
+import io.github.yagato.holodexwrapper.concurrent.HolodexExecutors;
+import io.github.yagato.holodexwrapper.concurrent.PagedPublisher;
+import io.github.yagato.holodexwrapper.concurrent.RequestScheduler;
+import io.github.yagato.holodexwrapper.concurrent.RequestTask;
+import io.github.yagato.holodexwrapper.http.AdaptiveConcurrencyLimiter;
+import io.github.yagato.holodexwrapper.http.ApiKeyPool;
+import io.github.yagato.holodexwrapper.http.Deadline;
+import io.github.yagato.holodexwrapper.http.DeadlineExceededException;
+import io.github.yagato.holodexwrapper.http.PooledBuffer;
+import io.github.yagato.holodexwrapper.http.Priority;
+import io.github.yagato.holodexwrapper.http.RateLimiter;
+import io.github.yagato.holodexwrapper.http.RequestContext;
+import io.github.yagato.holodexwrapper.http.RequestOptions;
+import io.github.yagato.holodexwrapper.http.Response;
+import io.github.yagato.holodexwrapper.http.Transport;
+import io.github.yagato.holodexwrapper.http.TransportStats;
+import io.github.yagato.holodexwrapper.http.UnexpectedResponseException;
+import io.github.yagato.holodexwrapper.json.JsonArrayIterator;
+import io.github.yagato.holodexwrapper.json.ParallelArrayDecoder;
 import io.github.yagato.holodexwrapper.model.Channel;
+import io.github.yagato.holodexwrapper.model.CompactChannel;
+import io.github.yagato.holodexwrapper.model.CompactVideo;
 import io.github.yagato.holodexwrapper.model.GetQueryParameters;
 import io.github.yagato.holodexwrapper.model.PostQueryParameters;
 import io.github.yagato.holodexwrapper.model.Video;
-
+import io.github.yagato.holodexwrapper.store.EntityStore;
+import io.github.yagato.holodexwrapper.store.Snapshot;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
 public class HolodexClient {
 
     private final String URL = "https://holodex.net/api/v2/";
     private final String HOLODEX_API_KEY;
+    private final int MAX_PAGE_SIZE = 50;
+    private static final Duration MIN_BACKFILL_WINDOW = Duration.ofMinutes(1);
 
+    private final ApiKeyPool apiKeyPool;
     private final ObjectMapper objectMapper;
+    private final Transport transport;
+    private final FairShareLimiter.Share tenantShare;
+
+    private final JavaType videoListType;
+    private final JavaType channelListType;
+    private final JavaType compactVideoListType;
+    private final JavaType compactChannelListType;
+
+    private volatile EntityStore entityStore;
+    private volatile ParallelArrayDecoder parallelArrayDecoder;
+    private volatile ExecutorService executor;
+    private volatile RateLimiter rateLimiter;
+    private volatile RequestScheduler scheduler;
+    private volatile HolodexCache cache;
+    private volatile MemoryBudget memoryBudget;
+    private final Map<String, Boolean> revalidating = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Bulkhead> bulkheads = new AtomicReferenceArray<>(Endpoint.values().length);
 
     public HolodexClient(String holodexApiKey) {
-        this.HOLODEX_API_KEY = holodexApiKey;
-        objectMapper = JsonMapper.builder()
-                .addModule(new JavaTimeModule())
-                .build();
+        this(holodexApiKey, (ApiKeyPool) null);
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/live taking a channel ID as
-     * its only parameter.
+     * Creates a client spreading its requests over several API keys, each with its own rate bucket,
+     * see {@link ApiKeyPool}.
      *
-     * @param channelId A channel ID.
-     * @return A List of Video objects matching the given channel ID.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param apiKeyPool The keys to use.
      */
-    public List<Video> getLiveAndUpcomingVideos(String channelId)
-            throws UnirestException, JsonProcessingException {
-        StringBuilder stringBuilder = new StringBuilder(URL + "live?");
-
-        if (channelId == null || channelId.equals("")) {
-            throw new RuntimeException("channelId can't be null");
-        }
+    public HolodexClient(ApiKeyPool apiKeyPool) {
+        this(null, apiKeyPool);
+    }
 
-        stringBuilder
-                .append("&channel_id=")
-                .append(channelId);
+    /**
+     * Creates a client sending its requests through the given transport, e.g. to go through a proxy.
+     * The other constructors use {@link Transport#fromUnirest()}, which picks up Unirest's proxy,
+     * timeouts and HttpClient.
+     *
+     * @param holodexApiKey The API key to use.
+     * @param transport The transport to send requests with.
+     */
+    public HolodexClient(String holodexApiKey, Transport transport) {
+        this(holodexApiKey, null, newObjectMapper(), transport, null);
+    }
 
-        HttpResponse<String> response = Unirest.get(stringBuilder.toString())
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+    private HolodexClient(String holodexApiKey, ApiKeyPool apiKeyPool) {
+        this(holodexApiKey, apiKeyPool, newObjectMapper(), Transport.fromUnirest(), null);
+    }
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+    /**
+     * Creates a client sharing its transport and parser with others, see {@link MultiTenantHolodexClient}.
+     */
+    HolodexClient(String holodexApiKey,
+                  ApiKeyPool apiKeyPool,
+                  ObjectMapper objectMapper,
+                  Transport transport,
+                  FairShareLimiter.Share tenantShare) {
+        this.HOLODEX_API_KEY = holodexApiKey;
+        this.apiKeyPool = apiKeyPool;
+        this.objectMapper = objectMapper;
+        this.transport = transport;
+        this.tenantShare = tenantShare;
+
+        videoListType = listType(Video.class);
+        channelListType = listType(Channel.class);
+        compactVideoListType = listType(CompactVideo.class);
+        compactChannelListType = listType(CompactChannel.class);
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/live
-     * with the help of a GetQueryParameters object.
+     * Method that enables the identity map: every Channel and Video returned by this client is
+     * resolved against the given store, so each ID maps to a single, always up-to-date instance.
      *
-     * <br><br>
-     *
-     * Allowed fields:
-     * <ul>
-     *     <li>channelId</li>
-     *     <li>videoId</li>
-     *     <li>extraInfo</li>
-     *     <li>languages</li>
-     *     <li>limit</li>
-     *     <li>maxUpcomingHours</li>
-     *     <li>mentionedChannelId</li>
-     *     <li>offset</li>
-     *     <li>sortOrder</li>
-     *     <li>organization</li>
-     *     <li>sortByField</li>
-     *     <li>status</li>
-     *     <li>topic</li>
-     *     <li>videoType</li>
-     * </ul>
-     *
-     *
-     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
-     * @return A List of Video objects matching the given parameters.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param entityStore The store to use, or null to disable it.
      */
-    public List<Video> getLiveAndUpcomingVideos(GetQueryParameters getQueryParameters)
-            throws UnirestException, JsonProcessingException {
-        StringBuilder stringBuilder = new StringBuilder(URL + "live?");
-
-        buildGetRequest(getQueryParameters, stringBuilder);
+    public void setEntityStore(EntityStore entityStore) {
+        this.entityStore = entityStore;
+    }
 
-        HttpResponse<String> response = Unirest.get(stringBuilder.toString())
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+    /**
+     * @return The identity map in use, or null if disabled.
+     */
+    public EntityStore getEntityStore() {
+        return entityStore;
+    }
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+    /**
+     * Method that enables parallel decoding of large list responses: the elements of any JSON array
+     * of at least the given size are deserialized on the given pool, keeping their original order.
+     *
+     * @param pool The pool to decode on, or null to decode every response on the calling thread.
+     * @param minimumBytes Size, in bytes, from which a response is decoded in parallel
+     *                     (see {@link ParallelArrayDecoder#DEFAULT_MIN_PARALLEL_BYTES}).
+     */
+    public void setParallelDecoding(ForkJoinPool pool, int minimumBytes) {
+        this.parallelArrayDecoder = pool == null ? null : new ParallelArrayDecoder(objectMapper, pool, minimumBytes);
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/videos
+     * Method that replaces the executor used by {@link #submit(Callable)} and the bulk methods. By
+     * default, the client lazily creates one with {@link HolodexExecutors#newRequestExecutor()}:
+     * one virtual thread per request on Java 21+, a bounded platform thread pool otherwise.
      *
-     * @return A List of Video objects.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param executor The executor to run requests on.
      */
-    public List<Video> getVideos() throws UnirestException, JsonProcessingException {
-        HttpResponse<String> response = Unirest.get(URL + "videos")
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+    public void setExecutor(ExecutorService executor) {
+        if (executor == null) {
+            throw new RuntimeException("executor can't be null");
+        }
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+        this.executor = executor;
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/videos
-     * with the help of a GetQueryParameters object.
-     *
-     * <br><br>
-     *
-     * Allowed fields:
-     *
-     * <ul>
-     *     <li>channelId</li>
-     *     <li>from</li>
-     *     <li>videoId</li>
-     *     <li>extraInfo</li>
-     *     <li>languages</li>
-     *     <li>limit</li>
-     *     <li>maxUpcomingHours</li>
-     *     <li>mentionedChannelId</li>
-     *     <li>offset</li>
-     *     <li>sortOrder</li>
-     *     <li>organization</li>
-     *     <li>sortByField</li>
-     *     <li>to</li>
-     *     <li>topic</li>
-     *     <li>videoType</li>
-     * </ul>
+     * Method that makes every request of this client wait for a permit from the given limiter, e.g.
+     * {@link RateLimiter#holodexDefault()}. Time spent waiting counts towards the deadline of the call.
+     * Clients created with an {@link ApiKeyPool} already limit each key on its own.
      *
-     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
-     * @return A List of Video objects matching the given parameters.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param rateLimiter The limiter to use, or null to send requests right away.
      */
-    public List<Video> getVideos(GetQueryParameters getQueryParameters)
-            throws UnirestException, JsonProcessingException {
-        StringBuilder stringBuilder = new StringBuilder(URL + "videos?");
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
 
-        buildGetRequest(getQueryParameters, stringBuilder);
+    /**
+     * @return The rate limiter in use, or null if disabled.
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
 
-        HttpResponse<String> response = Unirest.get(stringBuilder.toString())
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+    /**
+     * Method that makes requests wait for the given scheduler instead of the rate limiter, so that the
+     * budget is shared by priority rather than arrival order. The priority of a call is set with
+     * {@link RequestOptions#priority(Priority)}; requests to live endpoints default to
+     * {@link Priority#HIGH} and the others to {@link Priority#NORMAL}. E.g.
+     * {@code holodexClient.setScheduler(new RequestScheduler(RateLimiter.holodexDefault(), 200))}.
+     *
+     * @param scheduler The scheduler to use, or null to use the rate limiter, if any, in arrival order.
+     */
+    public void setScheduler(RequestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+    /**
+     * @return The scheduler in use, or null if disabled.
+     */
+    public RequestScheduler getScheduler() {
+        return scheduler;
     }
 
     /**
-     * A method that makes a GET request to https://holodex.net/api/v2/channels/{channelId}
+     * Method that caps how many requests of this client are in flight at once with a limit that
+     * adapts to Holodex's latency and 429/5xx responses, see {@link AdaptiveConcurrencyLimiter}.
      *
-     * @param channelId A channel ID.
-     * @return A Channel object matching the given channel ID.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param concurrencyLimiter The limiter to use, or null to disable it.
      */
-    public Channel getChannelInformation(String channelId) throws UnirestException, JsonProcessingException {
-        HttpResponse<String> response = Unirest.get(URL + "channels/" + channelId)
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+    public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        transport.setConcurrencyLimiter(concurrencyLimiter);
+    }
 
-        return objectMapper.readValue(response.getBody(), Channel.class);
+    /**
+     * @return The concurrency limiter in use, or null if disabled.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return transport.getConcurrencyLimiter();
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/channels/{channelId}/{type}
+     * Method that enables response caching for the endpoints the cache has a policy for, e.g. to
+     * share channel and video lookups between the processes of a host and across restarts:
      *
-     * <br><br>
+     * <pre>{@code
+     * HolodexCache cache = new HolodexCache(new HeapCache(), new MappedFileCache(path));
+     * cache.setPolicy(Endpoint.CHANNELS, CachePolicy.ttl(Duration.ofHours(1)));
+     * cache.setPolicy(Endpoint.METADATA, CachePolicy.ttl(Duration.ofMinutes(10)));
+     * holodexClient.setCache(cache);
+     * }</pre>
      *
-     * Allowed fields:
+     * Queries are cached under canonical keys, see {@link CacheKeys}, so that the order of array
+     * parameters doesn't matter. Streaming methods (iterate, forEach and publish) aren't cached. Lists
+     * returned by cached endpoints are shared and unmodifiable.
      *
-     * <ul>
-     *     <li>channelId (required)</li>
-     *     <li>videoType (required)</li>
-     *     <li>extraInfo</li>
-     *     <li>languages</li>
-     *     <li>limit</li>
-     *     <li>offset</li>
-     * </ul>
+     * <br><br>
      *
-     * <strong>Note</strong>: You can't filter videoType VIDEOS by language.
+     * With a {@link CachePolicy} staleWhileRevalidate, an expired response is returned right away
+     * while a single background request refreshes it; with staleIfError, it's returned when the
+     * request fails. With negativeTtl, a channel or video
+     * Holodex reported as missing or invalid fails again right away with the same
+     * {@link UnexpectedResponseException} status, without a request.
      *
-     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
-     * @return A List of Video objects matching the given parameters.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param cache The cache to use, or null to disable it.
      */
-    public List<Video> getVideosRelatedToChannel(GetQueryParameters getQueryParameters)
-            throws UnirestException, JsonProcessingException {
-        if (getQueryParameters.getChannelId() == null) {
-            throw new RuntimeException("Channel ID can't be null");
-        }
+    public synchronized void setCache(HolodexCache cache) {
+        MemoryBudget budget = memoryBudget;
 
-        if (getQueryParameters.getVideoType() == null) {
-            throw new RuntimeException("Video Type can't be null");
+        if (budget != null && this.cache != null) {
+            budget.unregister(this.cache);
+            this.cache.setMemoryBudget(null);
         }
 
-        if (getQueryParameters.getLanguages() != null && getQueryParameters.getVideoType().equals("videos")) {
-            throw new RuntimeException("Can't filter VIDEOS by language");
+        if (budget != null && cache != null) {
+            budget.register(cache);
+            cache.setMemoryBudget(budget);
         }
 
-        StringBuilder stringBuilder = new StringBuilder(URL + "channels/");
+        this.cache = cache;
+    }
 
-        stringBuilder
-                .append(getQueryParameters.getChannelId())
-                .append("/")
-                .append(getQueryParameters.getVideoType())
-                .append("?");
+    /**
+     * @return The cache in use, or null if disabled.
+     */
+    public HolodexCache getCache() {
+        return cache;
+    }
 
-        getQueryParameters.setChannelId(null);
-        getQueryParameters.setVideoType(null);
+    /**
+     * Method that makes the cache and the transport's buffer pool share a byte budget, possibly with
+     * other clients. Whenever a response is added to a cache tier kept on the heap, or the idle buffers
+     * grow by another eighth of the pool's retention limit, the tiers and the idle buffers are trimmed
+     * in proportion to their size if they're over the budget together. Entries are weighed by the size of the JSON they were decoded from, so
+     * one large video counts for many small ones. See {@link MemoryBudget#watchHeap(double)} to also
+     * shrink them under heap pressure.
+     *
+     * @param memoryBudget The budget to share, or null to only bound each cache by its own limits.
+     */
+    public synchronized void setMemoryBudget(MemoryBudget memoryBudget) {
+        MemoryBudget previous = this.memoryBudget;
+        HolodexCache currentCache = cache;
 
-        buildGetRequest(getQueryParameters, stringBuilder);
+        transport.getBufferPool().setMemoryBudget(memoryBudget);
 
-        HttpResponse<String> response = Unirest.get(stringBuilder.toString())
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+        if (previous != null) {
+            previous.unregister(transport.getBufferPool());
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+            if (currentCache != null) {
+                previous.unregister(currentCache);
+                currentCache.setMemoryBudget(null);
+            }
+        }
+
+        if (memoryBudget != null) {
+            memoryBudget.register(transport.getBufferPool());
+
+            if (currentCache != null) {
+                memoryBudget.register(currentCache);
+                currentCache.setMemoryBudget(memoryBudget);
+            }
+        }
+
+        this.memoryBudget = memoryBudget;
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/users/live
-     *
-     * <br><br>
-     *
-     * Allowed fields:
-     *
-     * <ul>
-     *     <li>channelIds (required)</li>
-     * </ul>
-     *
-     *
-     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
-     * @return A List of Video objects matching the given parameters.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @return The shared byte budget, or null if none.
      */
-    public List<Video> getLiveOrUpcomingVideosForSetOfChannels(GetQueryParameters getQueryParameters)
-            throws UnirestException, JsonProcessingException {
-        if (getQueryParameters.getChannelIds() == null) {
-            throw new RuntimeException("Channel IDs can't be null");
-        }
-
-        StringBuilder stringBuilder = new StringBuilder(URL + "users/live?channels=");
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
 
-        buildArrayParameter(getQueryParameters.getChannelIds(), stringBuilder);
+    /**
+     * Method that saves the on-heap tier of the cache and the identity map to a file, see
+     * {@link Snapshot}. The file is replaced atomically.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file can't be written.
+     */
+    public void writeSnapshot(Path path) throws IOException {
+        Snapshot.write(path, cache, entityStore, objectMapper);
+    }
 
-        HttpResponse<String> response = Unirest.get(stringBuilder.toString())
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+    /**
+     * Method that restores a snapshot written by {@link #writeSnapshot(Path)} into the current cache and
+     * identity map, typically right after they're set at startup. Restored responses are served like any
+     * other cached response, including expired ones that the cache policies allow as stale.
+     *
+     * @param path The file to read.
+     * @return Whether the file existed.
+     * @throws IOException If the file can't be read or isn't a snapshot.
+     */
+    public boolean restoreSnapshot(Path path) throws IOException {
+        boolean restored = Snapshot.read(path, cache, entityStore, objectMapper);
+        enforceMemoryBudget();
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+        return restored;
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/videos/{videoId}
+     * Method that writes a snapshot periodically on a background thread. Failed writes are skipped,
+     * keeping the previous snapshot.
      *
-     * @param videoId A YouTube video ID (required).
-     * @param timestampComments Flag that indicated whether to append timestamp comments for this video.
-     * @param languages Array of language codes to filter channels/clips.
-     * @return A Video object matching the given parameters.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param path The file to write.
+     * @param period Time between two snapshots, at least a millisecond.
+     * @return Stops the snapshots when closed, after writing a last one.
      */
-    public Video getVideoMetadata(String videoId,
-                                  Integer timestampComments,
-                                  String[] languages)
-            throws UnirestException, JsonProcessingException {
-        if (videoId == null) {
-            throw new RuntimeException("videoId can't be null");
+    public Closeable scheduleSnapshots(Path path, Duration period) {
+        if (period == null || period.toMillis() <= 0) {
+            throw new RuntimeException("The snapshot period must be positive");
         }
 
-        StringBuilder stringBuilder = new StringBuilder(URL + "videos/");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "holodex-snapshot");
+            thread.setDaemon(true);
 
-        stringBuilder
-                .append(videoId)
-                .append("?");
+            return thread;
+        });
 
-        if (timestampComments != null && (timestampComments == 0 || timestampComments == 1)) {
-            stringBuilder
-                    .append("&c=")
-                    .append(timestampComments);
-        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot(path);
+            } catch (IOException | RuntimeException ignored) {
+                // The previous snapshot is kept, the next one may succeed
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
 
-        if (languages != null) {
-            stringBuilder.append("&lang=");
-            buildArrayParameter(languages, stringBuilder);
-        }
+        return () -> {
+            scheduler.shutdownNow();
 
-        HttpResponse<String> response = Unirest.get(stringBuilder.toString())
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
 
-        return objectMapper.readValue(response.getBody(), Video.class);
+            writeSnapshot(path);
+        };
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/channels
+     * Method that isolates one class of endpoints from the others: its requests are limited to the
+     * bulkhead's concurrency, wait in its queue when it's exhausted, and are rejected with a
+     * {@link io.github.yagato.holodexwrapper.concurrent.RequestRejectedException} when the queue is
+     * full, e.g. {@code holodexClient.setBulkhead(Endpoint.SEARCH, new Bulkhead(4, 16))} keeps slow
+     * searches from starving live polling.
      *
-     * @return A List of Channel objects.
-     * @throws UnirestException
-     * @throws JsonProcessingException
+     * @param endpoint The class of endpoints.
+     * @param bulkhead The bulkhead to use, or null to not limit these endpoints.
      */
-    public List<Channel> listChannels() throws UnirestException, JsonProcessingException {
-        HttpResponse<String> response = Unirest.get(URL + "channels")
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+    public void setBulkhead(Endpoint endpoint, Bulkhead bulkhead) {
+        bulkheads.set(endpoint.ordinal(), bulkhead);
+    }
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Channel>>() {
-        });
+    /**
+     * @param endpoint The class of endpoints.
+     * @return The bulkhead of these endpoints, or null if they aren't limited.
+     */
+    public Bulkhead getBulkhead(Endpoint endpoint) {
+        return bulkheads.get(endpoint.ordinal());
     }
 
     /**
-     * Method that makes a GET request to https://holodex.net/api/v2/channels
+     * Method that runs any call of this client with the given options, e.g.
+     * {@code holodexClient.call(RequestOptions.timeout(Duration.ofSeconds(5)), () -> holodexClient.getVideos())}.
      *
      * <br><br>
      *
-     * Allowed fields:
+     * The timeout covers the whole call: waiting for the rate limit, connecting, reading and decoding,
+     * and every page or batch it's made of, including those run on the client's executor. Requests
+     * still in flight when it expires are aborted and the call throws a
+     * {@link DeadlineExceededException}. Interrupting the calling thread aborts them as well.
      *
-     * <ul>
-     *     <li>languages</li>
-     *     <li>limit</li>
-     *     <li>offset</li>
-     *     <li>sortOrder</li>
-     *     <li>organizations</li>
-     *     <li>sortByField</li>
-     *     <li>videoType</li>
-     * </ul>
+     * @param options The options of the call.
+     * @param call The call.
+     * @return The result of the call.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public <T> T call(RequestOptions options, HolodexCall<T> call) throws UnirestException, JsonProcessingException {
+        try (RequestContext.Scope scope = RequestContext.create(options).enter()) {
+            return call.call();
+        }
+    }
+
+    /**
+     * Method that runs any blocking call of this client on its executor, e.g.
+     * {@code holodexClient.submit(() -> holodexClient.getVideos(getQueryParameters))}.
+     *
+     * <br><br>
+     *
+     * The call inherits the deadline of the current call, if any, and cancelling the Future aborts its
+     * requests in flight. Calls made from a submitted call, bulk methods included, may wait for each
+     * other: when a submitted call waits for calls no thread has picked up yet, it runs them itself,
+     * so a bounded executor can't deadlock; see {@link HolodexExecutors}. A submitted call must not
+     * block on anything else that needs the executor, e.g. on the Future of another call it submitted:
+     * once every thread of a bounded pool waits that way, nothing runs anymore.
+     *
+     * <br><br>
+     *
+     * When the executor rejects the call, e.g. because its queue is full, the Future fails with a
+     * {@link io.github.yagato.holodexwrapper.concurrent.RequestRejectedException}.
+     *
+     * @param call The blocking call.
+     * @return A Future completed with the result of the call.
+     */
+    public <T> Future<T> submit(Callable<T> call) {
+        RequestTask<T> task = new RequestTask<>(call, RequestContext.fork());
+
+        try {
+            executor().execute(task);
+        } catch (RejectedExecutionException e) {
+            task.reject("The executor is saturated: " + e.getMessage());
+        }
+
+        return task;
+    }
+
+    /**
+     * Method that makes one GET request to https://holodex.net/api/v2/channels/{channelId} per channel
+     * ID, all of them concurrently on the client's executor.
+     *
+     * @param channelIds The channel IDs.
+     * @return A Map from channel ID to Channel object, in the order of the given IDs.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public Map<String, Channel> getChannelsInformation(Collection<String> channelIds)
+            throws UnirestException, JsonProcessingException {
+        Map<String, Future<Channel>> futures = new LinkedHashMap<>();
+
+        for (String channelId : channelIds) {
+            futures.computeIfAbsent(channelId, id -> submit(() -> getChannelInformation(id)));
+        }
+
+        Map<String, Channel> channels = new LinkedHashMap<>();
+
+        try {
+            for (Map.Entry<String, Future<Channel>> entry : futures.entrySet()) {
+                channels.put(entry.getKey(), await(entry.getValue()));
+            }
+        } finally {
+            cancelAll(futures.values());
+        }
+
+        return channels;
+    }
+
+    /**
+     * Method that pages through https://holodex.net/api/v2/videos, fetching several pages
+     * concurrently on the client's executor, until a page comes back incomplete.
+     *
+     * <br><br>
+     *
+     * The page size is the limit of the given parameters (50 if unset) and the first page starts at
+     * their offset (0 if unset). The given parameters aren't modified.
      *
      * @param getQueryParameters An object that lets you customize your GET requests with many fields.
-     * @return A List of Channel objects matching the given parameters.
+     * @param pagesInParallel Number of pages requested at the same time.
+     * @return A List of every Video object matching the given parameters, in page order.
      * @throws UnirestException
      * @throws JsonProcessingException
      */
-    public List<Channel> listChannels(GetQueryParameters getQueryParameters)
+    public List<Video> getAllVideos(GetQueryParameters getQueryParameters, int pagesInParallel)
             throws UnirestException, JsonProcessingException {
-        StringBuilder stringBuilder = new StringBuilder(URL + "channels?");
+        if (pagesInParallel < 1) {
+            throw new RuntimeException("pagesInParallel must be at least 1");
+        }
 
-        buildGetRequest(getQueryParameters, stringBuilder);
+        int pageSize = getQueryParameters.getLimit() == null ? MAX_PAGE_SIZE : getQueryParameters.getLimit();
+        int offset = getQueryParameters.getOffset() == null ? 0 : getQueryParameters.getOffset();
+        List<Video> videos = new ArrayList<>();
 
-        HttpResponse<String> response = Unirest.get(stringBuilder.toString())
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .asString();
+        while (true) {
+            List<Future<List<Video>>> pages = new ArrayList<>(pagesInParallel);
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Channel>>() {
-        });
+            for (int i = 0; i < pagesInParallel; i++) {
+                GetQueryParameters page = getQueryParameters.copy();
+                page.setLimit(pageSize);
+                page.setOffset(offset);
+                offset += pageSize;
+
+                pages.add(submit(() -> getVideos(page)));
+            }
+
+            try {
+                for (Future<List<Video>> future : pages) {
+                    List<Video> page = await(future);
+                    videos.addAll(page);
+
+                    if (page.size() < pageSize) {
+                        return videos;
+                    }
+                }
+            } finally {
+                cancelAll(pages);
+            }
+        }
     }
 
     /**
-     * Method that makes a POST request to https://holodex.net/api/v2/search/videoSearch
+     * Method that fetches every video of https://holodex.net/api/v2/videos available within the
+     * [from, to) range of the given parameters, e.g. to backfill a year of an organization's videos,
+     * by splitting the range into time windows fetched concurrently on the client's executor.
      *
      * <br><br>
      *
-     * Allowed fields:
+     * The range is first cut into windows of the given length. A window whose first page comes back
+     * full is dense, and is split in two until windows are down to a minute, from which they're paged
+     * through by offset; that keeps offsets shallow however many videos the range holds. Split points
+     * are whole seconds in UTC. Every request goes through the client's rate limiter or scheduler, if
+     * any, at {@link Priority#LOW} so that a backfill yields to interactive calls. The page size is the
+     * limit of the given parameters (50 if unset) and their offset is ignored. The given parameters
+     * aren't modified.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields;
+     *                           from and to are required.
+     * @param window Length of the windows the range is first cut into.
+     * @param windowsInParallel Number of requests sent at the same time.
+     * @return A List of every matching Video object, without duplicates, ordered by window.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Video> backfillVideos(GetQueryParameters getQueryParameters, Duration window, int windowsInParallel)
+            throws UnirestException, JsonProcessingException {
+        OffsetDateTime from = getQueryParameters.getFrom();
+        OffsetDateTime to = getQueryParameters.getTo();
+
+        if (from == null || to == null) {
+            throw new RuntimeException("from and to can't be null");
+        }
+
+        if (window.isNegative() || window.isZero()) {
+            throw new RuntimeException("window must be positive");
+        }
+
+        if (windowsInParallel < 1) {
+            throw new RuntimeException("windowsInParallel must be at least 1");
+        }
+
+        int pageSize = getQueryParameters.getLimit() == null ? MAX_PAGE_SIZE : getQueryParameters.getLimit();
+        RequestOptions backfill = RequestOptions.priority(Priority.LOW);
+        Deque<GetQueryParameters> pending = new ArrayDeque<>();
+
+        for (OffsetDateTime start = from; start.isBefore(to); start = start.plus(window)) {
+            OffsetDateTime end = start.plus(window).isBefore(to) ? start.plus(window) : to;
+            pending.add(videoWindow(getQueryParameters, start, end, 0, pageSize));
+        }
+
+        Map<Future<List<Video>>, GetQueryParameters> inFlight = new LinkedHashMap<>();
+        List<Map.Entry<GetQueryParameters, List<Video>>> pages = new ArrayList<>();
+
+        try {
+            while (!pending.isEmpty() || !inFlight.isEmpty()) {
+                while (inFlight.size() < windowsInParallel && !pending.isEmpty()) {
+                    GetQueryParameters page = pending.poll();
+                    inFlight.put(submit(() -> call(backfill, () -> getVideos(page))), page);
+                }
+
+                Map.Entry<Future<List<Video>>, GetQueryParameters> oldest = inFlight.entrySet().iterator().next();
+                GetQueryParameters page = oldest.getValue();
+                List<Video> received = await(oldest.getKey());
+                List<Video> videos = received == null ? Collections.emptyList() : received;
+
+                inFlight.remove(oldest.getKey());
+                pages.add(Map.entry(page, videos));
+
+                if (videos.size() < pageSize) {
+                    continue;
+                }
+
+                Duration length = Duration.between(page.getFrom(), page.getTo());
+
+                // Dense windows are halved rather than paged through; the page already received is kept
+                if (page.getOffset() == 0 && length.compareTo(MIN_BACKFILL_WINDOW) > 0) {
+                    OffsetDateTime middle = page.getFrom()
+                            .plus(length.dividedBy(2))
+                            .withOffsetSameInstant(ZoneOffset.UTC)
+                            .truncatedTo(ChronoUnit.SECONDS);
+
+                    pending.add(videoWindow(getQueryParameters, page.getFrom(), middle, 0, pageSize));
+                    pending.add(videoWindow(getQueryParameters, middle, page.getTo(), 0, pageSize));
+                } else {
+                    pending.add(videoWindow(getQueryParameters, page.getFrom(), page.getTo(),
+                            page.getOffset() + pageSize, pageSize));
+                }
+            }
+        } finally {
+            cancelAll(inFlight.keySet());
+        }
+
+        pages.sort(Comparator.comparing((Map.Entry<GetQueryParameters, List<Video>> entry) -> entry.getKey().getFrom())
+                .thenComparing(entry -> entry.getKey().getOffset()));
+
+        Map<String, Video> byId = new LinkedHashMap<>();
+        List<Video> withoutId = new ArrayList<>();
+
+        for (Map.Entry<GetQueryParameters, List<Video>> entry : pages) {
+            for (Video video : entry.getValue()) {
+                if (video.getId() == null) {
+                    withoutId.add(video);
+                } else {
+                    byId.putIfAbsent(video.getId(), video);
+                }
+            }
+        }
+
+        List<Video> videos = new ArrayList<>(byId.values());
+        videos.addAll(withoutId);
+
+        return videos;
+    }
+
+    private static GetQueryParameters videoWindow(GetQueryParameters getQueryParameters,
+                                                  OffsetDateTime from,
+                                                  OffsetDateTime to,
+                                                  int offset,
+                                                  int pageSize) {
+        GetQueryParameters window = getQueryParameters.copy();
+        window.setFrom(from);
+        window.setTo(to);
+        window.setOffset(offset);
+        window.setLimit(pageSize);
+
+        return window;
+    }
+
+    /**
+     * Reactive version of {@link #getVideos(GetQueryParameters)} that pages through every matching
+     * video. Pages are only requested while subscribers have outstanding demand, and cancelling a
+     * subscription aborts the request in flight.
+     *
+     * <br><br>
+     *
+     * The page size is the limit of the given parameters (50 if unset) and the first page starts at
+     * their offset (0 if unset).
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A Publisher of every Video object matching the given parameters.
+     */
+    public Flow.Publisher<Video> publishVideos(GetQueryParameters getQueryParameters) {
+        return publish(getQueryParameters, this::iterateVideos);
+    }
+
+    /**
+     * Reactive version of {@link #listChannels(GetQueryParameters)} that pages through every matching
+     * channel. Pages are only requested while subscribers have outstanding demand, and cancelling a
+     * subscription aborts the request in flight.
+     *
+     * <br><br>
+     *
+     * The page size is the limit of the given parameters (50 if unset) and the first page starts at
+     * their offset (0 if unset).
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A Publisher of every Channel object matching the given parameters.
+     */
+    public Flow.Publisher<Channel> publishChannels(GetQueryParameters getQueryParameters) {
+        return publish(getQueryParameters, this::iterateChannels);
+    }
+
+    /**
+     * Reactive version of {@link #getVideosRelatedToChannel(GetQueryParameters)} that pages through
+     * every matching video. Pages are only requested while subscribers have outstanding demand, and
+     * cancelling a subscription aborts the request in flight.
+     *
+     * <br><br>
+     *
+     * The page size is the limit of the given parameters (50 if unset) and the first page starts at
+     * their offset (0 if unset).
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A Publisher of every Video object matching the given parameters.
+     */
+    public Flow.Publisher<Video> publishVideosRelatedToChannel(GetQueryParameters getQueryParameters) {
+        return publish(getQueryParameters, this::iterateVideosRelatedToChannel);
+    }
+
+    /**
+     * Reactive version of {@link #searchVideos(PostQueryParameters)} that pages through every matching
+     * video. Pages are only requested while subscribers have outstanding demand, and cancelling a
+     * subscription aborts the request in flight.
+     *
+     * <br><br>
+     *
+     * The page size is the limit of the given parameters and the first page starts at their offset.
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @return A Publisher of every Video object matching the given parameters.
+     */
+    public Flow.Publisher<Video> publishSearchVideos(PostQueryParameters postQueryParameters) {
+        return publish(postQueryParameters, this::iterateSearchVideos);
+    }
+
+    /**
+     * Reactive version of {@link #searchCommentsVideos(PostQueryParameters)} that pages through every
+     * matching video. Pages are only requested while subscribers have outstanding demand, and
+     * cancelling a subscription aborts the request in flight.
+     *
+     * <br><br>
+     *
+     * The page size is the limit of the given parameters and the first page starts at their offset.
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @return A Publisher of every Video object matching the given parameters.
+     */
+    public Flow.Publisher<Video> publishSearchCommentsVideos(PostQueryParameters postQueryParameters) {
+        if (postQueryParameters.getComment() == null) {
+            throw new RuntimeException("Comment can't be null");
+        }
+
+        return publish(postQueryParameters, this::iterateSearchCommentsVideos);
+    }
+
+    /**
+     * @return The traffic counters of this client, including the bytes saved by compression.
+     */
+    public TransportStats getStats() {
+        return transport.getStats();
+    }
+
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/live taking a channel ID as
+     * its only parameter.
+     *
+     * @param channelId A channel ID.
+     * @return A List of Video objects matching the given channel ID.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Video> getLiveAndUpcomingVideos(String channelId)
+            throws UnirestException, JsonProcessingException {
+        StringBuilder stringBuilder = new StringBuilder(URL + "live?");
+
+        if (channelId == null || channelId.equals("")) {
+            throw new RuntimeException("channelId can't be null");
+        }
+
+        stringBuilder
+                .append("&channel_id=")
+                .append(channelId);
+
+        return get(stringBuilder.toString(), videoListType);
+    }
+
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/live
+     * with the help of a GetQueryParameters object.
+     *
+     * <br><br>
      *
+     * Allowed fields:
      * <ul>
-     *     <li>sort</li>
+     *     <li>channelId</li>
+     *     <li>videoId</li>
+     *     <li>extraInfo</li>
      *     <li>languages</li>
-     *     <li>videoTypes</li>
-     *     <li>conditions</li>
-     *     <li>topics</li>
-     *     <li>topics</li>
-     *     <li>channelIds</li>
-     *     <li>organizations</li>
-     *     <li>offset</li>
      *     <li>limit</li>
+     *     <li>maxUpcomingHours</li>
+     *     <li>mentionedChannelId</li>
+     *     <li>offset</li>
+     *     <li>sortOrder</li>
+     *     <li>organization</li>
+     *     <li>sortByField</li>
+     *     <li>status</li>
+     *     <li>topic</li>
+     *     <li>videoType</li>
      * </ul>
      *
-     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
      * @return A List of Video objects matching the given parameters.
      * @throws UnirestException
      * @throws JsonProcessingException
      */
-    public List<Video> searchVideos(PostQueryParameters postQueryParameters)
+    public List<Video> getLiveAndUpcomingVideos(GetQueryParameters getQueryParameters)
             throws UnirestException, JsonProcessingException {
+        return get(liveUrl(getQueryParameters), videoListType);
+    }
 
-        HttpResponse<String> response = Unirest.post(URL + "search/videoSearch")
-                .header("Content-Type", "application/json")
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .body(objectMapper.writeValueAsString(postQueryParameters))
-                .asString();
-
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/videos
+     *
+     * @return A List of Video objects.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Video> getVideos() throws UnirestException, JsonProcessingException {
+        return get(URL + "videos", videoListType);
     }
 
     /**
-     * Method that makes a POST request to https://holodex.net/api/v2/search/commentSearch
+     * Method that makes a GET request to https://holodex.net/api/v2/videos
+     * with the help of a GetQueryParameters object.
      *
      * <br><br>
      *
      * Allowed fields:
      *
      * <ul>
-     *     <li>sort</li>
+     *     <li>channelId</li>
+     *     <li>from</li>
+     *     <li>videoId</li>
+     *     <li>extraInfo</li>
      *     <li>languages</li>
-     *     <li>videoTypes</li>
-     *     <li>conditions</li>
-     *     <li>topics</li>
-     *     <li>channelIds</li>
-     *     <li>organizations</li>
-     *     <li>comment</li>
-     *     <li>offset</li>
      *     <li>limit</li>
+     *     <li>maxUpcomingHours</li>
+     *     <li>mentionedChannelId</li>
+     *     <li>offset</li>
+     *     <li>sortOrder</li>
+     *     <li>organization</li>
+     *     <li>sortByField</li>
+     *     <li>to</li>
+     *     <li>topic</li>
+     *     <li>videoType</li>
      * </ul>
      *
-     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
      * @return A List of Video objects matching the given parameters.
      * @throws UnirestException
      * @throws JsonProcessingException
      */
-    public List<Video> searchCommentsVideos(PostQueryParameters postQueryParameters)
+    public List<Video> getVideos(GetQueryParameters getQueryParameters)
             throws UnirestException, JsonProcessingException {
+        return get(videosUrl(getQueryParameters), videoListType);
+    }
 
-        if (postQueryParameters.getComment() == null) {
-            throw new RuntimeException("Comment can't be null");
-        }
-
-        HttpResponse<String> response = Unirest.post(URL + "search/commentSearch")
-                .header("Content-Type", "application/json")
-                .header("Accept", "application/json")
-                .header("X-APIKEY", HOLODEX_API_KEY)
-                .body(objectMapper.writeValueAsString(postQueryParameters))
-                .asString();
+    /**
+     * A method that makes a GET request to https://holodex.net/api/v2/channels/{channelId}
+     *
+     * @param channelId A channel ID.
+     * @return A Channel object matching the given channel ID.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public Channel getChannelInformation(String channelId) throws UnirestException, JsonProcessingException {
+        return get(URL + "channels/" + channelId, objectMapper.constructType(Channel.class));
+    }
 
-        return objectMapper.readValue(response.getBody(), new TypeReference<List<Video>>() {
-        });
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/channels/{channelId}/{type}
+     *
+     * <br><br>
+     *
+     * Allowed fields:
+     *
+     * <ul>
+     *     <li>channelId (required)</li>
+     *     <li>videoType (required)</li>
+     *     <li>extraInfo</li>
+     *     <li>languages</li>
+     *     <li>limit</li>
+     *     <li>offset</li>
+     * </ul>
+     *
+     * <strong>Note</strong>: You can't filter videoType VIDEOS by language.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A List of Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Video> getVideosRelatedToChannel(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return get(videosRelatedToChannelUrl(getQueryParameters), videoListType);
+    }
+
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/users/live
+     *
+     * <br><br>
+     *
+     * Allowed fields:
+     *
+     * <ul>
+     *     <li>channelIds (required)</li>
+     * </ul>
+     *
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A List of Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Video> getLiveOrUpcomingVideosForSetOfChannels(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return get(liveForChannelsUrl(getQueryParameters), videoListType);
+    }
+
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/videos/{videoId}
+     *
+     * @param videoId A YouTube video ID (required).
+     * @param timestampComments Flag that indicated whether to append timestamp comments for this video.
+     * @param languages Array of language codes to filter channels/clips.
+     * @return A Video object matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public Video getVideoMetadata(String videoId,
+                                  Integer timestampComments,
+                                  String[] languages)
+            throws UnirestException, JsonProcessingException {
+        if (videoId == null) {
+            throw new RuntimeException("videoId can't be null");
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(URL + "videos/");
+
+        stringBuilder
+                .append(videoId)
+                .append("?");
+
+        if (timestampComments != null && (timestampComments == 0 || timestampComments == 1)) {
+            stringBuilder
+                    .append("&c=")
+                    .append(timestampComments);
+        }
+
+        if (languages != null) {
+            stringBuilder.append("&lang=");
+            buildArrayParameter(languages, stringBuilder);
+        }
+
+        return get(stringBuilder.toString(), objectMapper.constructType(Video.class));
+    }
+
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/channels
+     *
+     * @return A List of Channel objects.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Channel> listChannels() throws UnirestException, JsonProcessingException {
+        return get(URL + "channels", channelListType);
+    }
+
+    /**
+     * Method that makes a GET request to https://holodex.net/api/v2/channels
+     *
+     * <br><br>
+     *
+     * Allowed fields:
+     *
+     * <ul>
+     *     <li>languages</li>
+     *     <li>limit</li>
+     *     <li>offset</li>
+     *     <li>sortOrder</li>
+     *     <li>organizations</li>
+     *     <li>sortByField</li>
+     *     <li>videoType</li>
+     * </ul>
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A List of Channel objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Channel> listChannels(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return get(channelsUrl(getQueryParameters), channelListType);
+    }
+
+    /**
+     * Method that makes a POST request to https://holodex.net/api/v2/search/videoSearch
+     *
+     * <br><br>
+     *
+     * Allowed fields:
+     *
+     * <ul>
+     *     <li>sort</li>
+     *     <li>languages</li>
+     *     <li>videoTypes</li>
+     *     <li>conditions</li>
+     *     <li>topics</li>
+     *     <li>topics</li>
+     *     <li>channelIds</li>
+     *     <li>organizations</li>
+     *     <li>offset</li>
+     *     <li>limit</li>
+     * </ul>
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @return A List of Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Video> searchVideos(PostQueryParameters postQueryParameters)
+            throws UnirestException, JsonProcessingException {
+
+        return post(URL + "search/videoSearch", postQueryParameters, videoListType);
+    }
+
+    /**
+     * Method that makes a POST request to https://holodex.net/api/v2/search/commentSearch
+     *
+     * <br><br>
+     *
+     * Allowed fields:
+     *
+     * <ul>
+     *     <li>sort</li>
+     *     <li>languages</li>
+     *     <li>videoTypes</li>
+     *     <li>conditions</li>
+     *     <li>topics</li>
+     *     <li>channelIds</li>
+     *     <li>organizations</li>
+     *     <li>comment</li>
+     *     <li>offset</li>
+     *     <li>limit</li>
+     * </ul>
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @return A List of Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<Video> searchCommentsVideos(PostQueryParameters postQueryParameters)
+            throws UnirestException, JsonProcessingException {
+
+        if (postQueryParameters.getComment() == null) {
+            throw new RuntimeException("Comment can't be null");
+        }
+
+        return post(URL + "search/commentSearch", postQueryParameters, videoListType);
+    }
+
+    /**
+     * Same as {@link #getLiveAndUpcomingVideos(GetQueryParameters)}, but returns the memory-friendly
+     * CompactVideo model.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A List of CompactVideo objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<CompactVideo> getCompactLiveAndUpcomingVideos(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return get(liveUrl(getQueryParameters), compactVideoListType);
+    }
+
+    /**
+     * Same as {@link #getVideos(GetQueryParameters)}, but returns the memory-friendly
+     * CompactVideo model.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A List of CompactVideo objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<CompactVideo> getCompactVideos(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return get(videosUrl(getQueryParameters), compactVideoListType);
+    }
+
+    /**
+     * Same as {@link #listChannels(GetQueryParameters)}, but returns the memory-friendly
+     * CompactChannel model.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return A List of CompactChannel objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<CompactChannel> listCompactChannels(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return get(channelsUrl(getQueryParameters), compactChannelListType);
+    }
+
+    /**
+     * Same as {@link #searchVideos(PostQueryParameters)}, but returns the memory-friendly
+     * CompactVideo model.
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @return A List of CompactVideo objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public List<CompactVideo> searchCompactVideos(PostQueryParameters postQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return post(URL + "search/videoSearch", postQueryParameters, compactVideoListType);
+    }
+
+    /**
+     * Streaming version of {@link #getLiveAndUpcomingVideos(GetQueryParameters)}: returns an iterator that deserializes each Video
+     * only when it's requested, while the response is still being received. The iterator must be
+     * closed if it isn't read until the end.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return An iterator over the Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public JsonArrayIterator<Video> iterateLiveAndUpcomingVideos(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return iterate(new HttpGet(liveUrl(getQueryParameters)), Video.class);
+    }
+
+    /**
+     * Streaming version of {@link #getLiveAndUpcomingVideos(GetQueryParameters)}: hands each Video to the consumer as soon as it's
+     * parsed. The response is read only as fast as the consumer processes the elements.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @param consumer Called with every Video object matching the given parameters, in order.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public void forEachLiveAndUpcomingVideo(GetQueryParameters getQueryParameters, Consumer<? super Video> consumer)
+            throws UnirestException, JsonProcessingException {
+        forEach(new HttpGet(liveUrl(getQueryParameters)), Video.class, consumer);
+    }
+
+    /**
+     * Streaming version of {@link #getVideos(GetQueryParameters)}: returns an iterator that deserializes each Video
+     * only when it's requested, while the response is still being received. The iterator must be
+     * closed if it isn't read until the end.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return An iterator over the Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public JsonArrayIterator<Video> iterateVideos(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return iterate(new HttpGet(videosUrl(getQueryParameters)), Video.class);
+    }
+
+    /**
+     * Streaming version of {@link #getVideos(GetQueryParameters)}: hands each Video to the consumer as soon as it's
+     * parsed. The response is read only as fast as the consumer processes the elements.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @param consumer Called with every Video object matching the given parameters, in order.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public void forEachVideo(GetQueryParameters getQueryParameters, Consumer<? super Video> consumer)
+            throws UnirestException, JsonProcessingException {
+        forEach(new HttpGet(videosUrl(getQueryParameters)), Video.class, consumer);
+    }
+
+    /**
+     * Streaming version of {@link #getVideosRelatedToChannel(GetQueryParameters)}: returns an iterator that deserializes each Video
+     * only when it's requested, while the response is still being received. The iterator must be
+     * closed if it isn't read until the end.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return An iterator over the Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public JsonArrayIterator<Video> iterateVideosRelatedToChannel(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return iterate(new HttpGet(videosRelatedToChannelUrl(getQueryParameters)), Video.class);
+    }
+
+    /**
+     * Streaming version of {@link #getVideosRelatedToChannel(GetQueryParameters)}: hands each Video to the consumer as soon as it's
+     * parsed. The response is read only as fast as the consumer processes the elements.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @param consumer Called with every Video object matching the given parameters, in order.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public void forEachVideoRelatedToChannel(GetQueryParameters getQueryParameters, Consumer<? super Video> consumer)
+            throws UnirestException, JsonProcessingException {
+        forEach(new HttpGet(videosRelatedToChannelUrl(getQueryParameters)), Video.class, consumer);
+    }
+
+    /**
+     * Streaming version of {@link #getLiveOrUpcomingVideosForSetOfChannels(GetQueryParameters)}: returns an iterator that deserializes each Video
+     * only when it's requested, while the response is still being received. The iterator must be
+     * closed if it isn't read until the end.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return An iterator over the Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public JsonArrayIterator<Video> iterateLiveOrUpcomingVideosForSetOfChannels(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return iterate(new HttpGet(liveForChannelsUrl(getQueryParameters)), Video.class);
+    }
+
+    /**
+     * Streaming version of {@link #getLiveOrUpcomingVideosForSetOfChannels(GetQueryParameters)}: hands each Video to the consumer as soon as it's
+     * parsed. The response is read only as fast as the consumer processes the elements.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @param consumer Called with every Video object matching the given parameters, in order.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public void forEachLiveOrUpcomingVideoForSetOfChannels(GetQueryParameters getQueryParameters, Consumer<? super Video> consumer)
+            throws UnirestException, JsonProcessingException {
+        forEach(new HttpGet(liveForChannelsUrl(getQueryParameters)), Video.class, consumer);
+    }
+
+    /**
+     * Streaming version of {@link #listChannels(GetQueryParameters)}: returns an iterator that deserializes each Channel
+     * only when it's requested, while the response is still being received. The iterator must be
+     * closed if it isn't read until the end.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @return An iterator over the Channel objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public JsonArrayIterator<Channel> iterateChannels(GetQueryParameters getQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return iterate(new HttpGet(channelsUrl(getQueryParameters)), Channel.class);
+    }
+
+    /**
+     * Streaming version of {@link #listChannels(GetQueryParameters)}: hands each Channel to the consumer as soon as it's
+     * parsed. The response is read only as fast as the consumer processes the elements.
+     *
+     * @param getQueryParameters An object that lets you customize your GET requests with many fields.
+     * @param consumer Called with every Channel object matching the given parameters, in order.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public void forEachChannel(GetQueryParameters getQueryParameters, Consumer<? super Channel> consumer)
+            throws UnirestException, JsonProcessingException {
+        forEach(new HttpGet(channelsUrl(getQueryParameters)), Channel.class, consumer);
+    }
+
+    /**
+     * Streaming version of {@link #searchVideos(PostQueryParameters)}: returns an iterator that deserializes each Video
+     * only when it's requested, while the response is still being received. The iterator must be
+     * closed if it isn't read until the end.
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @return An iterator over the Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public JsonArrayIterator<Video> iterateSearchVideos(PostQueryParameters postQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        return iterate(postRequest(URL + "search/videoSearch", postQueryParameters), Video.class);
+    }
+
+    /**
+     * Streaming version of {@link #searchVideos(PostQueryParameters)}: hands each Video to the consumer as soon as it's
+     * parsed. The response is read only as fast as the consumer processes the elements.
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @param consumer Called with every Video object matching the given parameters, in order.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public void forEachSearchVideo(PostQueryParameters postQueryParameters, Consumer<? super Video> consumer)
+            throws UnirestException, JsonProcessingException {
+        forEach(postRequest(URL + "search/videoSearch", postQueryParameters), Video.class, consumer);
+    }
+
+    /**
+     * Streaming version of {@link #searchCommentsVideos(PostQueryParameters)}: returns an iterator that deserializes each Video
+     * only when it's requested, while the response is still being received. The iterator must be
+     * closed if it isn't read until the end.
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @return An iterator over the Video objects matching the given parameters.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public JsonArrayIterator<Video> iterateSearchCommentsVideos(PostQueryParameters postQueryParameters)
+            throws UnirestException, JsonProcessingException {
+        if (postQueryParameters.getComment() == null) {
+            throw new RuntimeException("Comment can't be null");
+        }
+
+        return iterate(postRequest(URL + "search/commentSearch", postQueryParameters), Video.class);
+    }
+
+    /**
+     * Streaming version of {@link #searchCommentsVideos(PostQueryParameters)}: hands each Video to the consumer as soon as it's
+     * parsed. The response is read only as fast as the consumer processes the elements.
+     *
+     * @param postQueryParameters An object that lets you customize your POST requests with many fields.
+     * @param consumer Called with every Video object matching the given parameters, in order.
+     * @throws UnirestException
+     * @throws JsonProcessingException
+     */
+    public void forEachSearchCommentsVideo(PostQueryParameters postQueryParameters, Consumer<? super Video> consumer)
+            throws UnirestException, JsonProcessingException {
+        if (postQueryParameters.getComment() == null) {
+            throw new RuntimeException("Comment can't be null");
+        }
+
+        forEach(postRequest(URL + "search/commentSearch", postQueryParameters), Video.class, consumer);
+    }
+
+    private <T> T get(String url, JavaType type) throws UnirestException, JsonProcessingException {
+        return send(new HttpGet(url), CacheKeys.forGet(url.substring(URL.length())), type);
+    }
+
+    private <T> T post(String url, PostQueryParameters query, JavaType type)
+            throws UnirestException, JsonProcessingException {
+        String key = CacheKeys.forPost(url.substring(URL.length()), query, objectMapper);
+
+        return send(postRequest(url, query), key, type);
+    }
+
+    private <T> T send(HttpUriRequest request, String cacheKey, JavaType type)
+            throws UnirestException, JsonProcessingException {
+        HolodexCache currentCache = cache;
+        CachePolicy policy = currentCache == null
+                ? null
+                : currentCache.getPolicy(Endpoint.forPath(request.getURI().getPath()));
+
+        if (policy == null) {
+            return send(request, type);
+        }
+
+        // A channel or video looked up by ID stays missing whatever the query parameters of the request;
+        // queries aren't remembered, a bad one would otherwise block every query of the endpoint
+        String resourceKey = request instanceof HttpGet ? CacheKeys.resourceOf(cacheKey) : null;
+        int missingStatus = resourceKey == null ? 0 : currentCache.getMissingStatus(policy, resourceKey);
+
+        if (missingStatus != 0) {
+            throw new UnexpectedResponseException(missingStatus, null, "(remembered as missing)");
+        }
+
+        CacheEntry<T> cached = null;
+
+        if (policy.isReadThrough()) {
+            cached = currentCache.lookup(policy, cacheKey, body -> immutable(resolveEntities(decode(body, body.length, type))));
+
+            if (cached != null && !cached.isExpired()) {
+                return cached.getValue();
+            }
+
+            if (cached != null && policy.canServeWhileRevalidating(cached)) {
+                revalidate(request, cacheKey, resourceKey, type, currentCache, policy);
+                return cached.getValue();
+            }
+        }
+
+        try {
+            return fetch(request, cacheKey, resourceKey, type, currentCache, policy);
+        } catch (UnirestException | JsonProcessingException e) {
+            if (cached != null && policy.canServeOnError(cached) && !isMissing(e, resourceKey != null)) {
+                return cached.getValue();
+            }
+
+            throw e;
+        }
+    }
+
+    // Refreshes a stale entry in the background, once at a time per key, without the caller's deadline
+    private <T> void revalidate(HttpUriRequest request,
+                                String cacheKey,
+                                String resourceKey,
+                                JavaType type,
+                                HolodexCache currentCache,
+                                CachePolicy policy) {
+        if (revalidating.putIfAbsent(cacheKey, Boolean.TRUE) != null) {
+            return;
+        }
+
+        RequestContext current = RequestContext.current();
+        RequestOptions options = new RequestOptions(null, current == null ? null : current.getOptions().getPriority());
+
+        try {
+            executor().execute(new RequestTask<>(() -> {
+                try {
+                    return fetch(request, cacheKey, resourceKey, type, currentCache, policy);
+                } finally {
+                    revalidating.remove(cacheKey);
+                }
+            }, RequestContext.detached(options)));
+        } catch (RuntimeException e) {
+            revalidating.remove(cacheKey);
+        }
+    }
+
+    private <T> T fetch(HttpUriRequest request,
+                        String cacheKey,
+                        String resourceKey,
+                        JavaType type,
+                        HolodexCache currentCache,
+                        CachePolicy policy) throws UnirestException, JsonProcessingException {
+        try (Response response = open(request)) {
+            try {
+                response.requireJson();
+            } catch (UnexpectedResponseException e) {
+                if (HolodexCache.isMissing(e.getStatus(), resourceKey != null)) {
+                    currentCache.invalidate(cacheKey);
+
+                    if (resourceKey != null) {
+                        currentCache.putMissing(policy, resourceKey, e.getStatus());
+                    }
+                }
+
+                throw e;
+            }
+
+            try (PooledBuffer body = response.readFully()) {
+                checkDeadline("decoding the response");
+
+                T value = immutable(resolveEntities(decode(body.array(), body.length(), type)));
+
+                if (policy.isWriteThrough()) {
+                    currentCache.put(policy, cacheKey, body.array(), body.length(), value);
+                }
+
+                return value;
+            }
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    private void enforceMemoryBudget() {
+        MemoryBudget budget = memoryBudget;
+
+        if (budget != null) {
+            budget.enforce();
+        }
+    }
+
+    private static boolean isMissing(Exception e, boolean idLookup) {
+        return e instanceof UnexpectedResponseException
+                && HolodexCache.isMissing(((UnexpectedResponseException) e).getStatus(), idLookup);
+    }
+
+    private <T> T send(HttpUriRequest request, JavaType type) throws UnirestException, JsonProcessingException {
+        try (Response response = open(request)) {
+            response.requireJson();
+
+            return resolveEntities(decode(response, type));
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    private <T> T decode(Response response, JavaType type) throws IOException, UnirestException {
+        ParallelArrayDecoder decoder = parallelArrayDecoder;
+
+        if (decoder != null && type.isCollectionLikeType()) {
+            // The decoded objects don't reference the bytes, so the buffer can go back right away
+            try (PooledBuffer body = response.readFully()) {
+                checkDeadline("decoding the response");
+
+                return decode(body.array(), body.length(), type);
+            }
+        }
+
+        // Checking for trailing tokens reads the body to its end, so that the connection can be reused
+        return objectMapper.readerFor(type)
+                .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+                .readValue(response.getBody());
+    }
+
+    private <T> T decode(byte[] body, int length, JavaType type) throws IOException {
+        ParallelArrayDecoder decoder = parallelArrayDecoder;
+
+        if (decoder != null && type.isCollectionLikeType()) {
+            @SuppressWarnings("unchecked")
+            T list = (T) decoder.decode(body, 0, length, type);
+            return list;
+        }
+
+        return objectMapper.readValue(body, 0, length, type);
+    }
+
+    // Cached lists are shared between callers, so none of them may modify them
+    @SuppressWarnings("unchecked")
+    private static <T> T immutable(T value) {
+        return value instanceof List ? (T) Collections.unmodifiableList((List<?>) value) : value;
+    }
+
+    private <T> JsonArrayIterator<T> iterate(HttpUriRequest request, Class<T> elementType)
+            throws UnirestException, JsonProcessingException {
+        Response response = open(request);
+
+        try {
+            response.requireJson();
+        } catch (UnirestException e) {
+            response.close();
+            throw e;
+        }
+
+        try {
+            // An iterator over a parser it didn't create leaves it open at the end of the array, so that
+            // the rest of the body can still be read. Clearing the START_ARRAY token makes it start
+            // with the first element
+            JsonParser parser = objectMapper.createParser(response.getBody());
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array");
+            }
+
+            parser.clearCurrentToken();
+
+            MappingIterator<T> elements = objectMapper.readerFor(elementType).readValues(parser);
+
+            return new JsonArrayIterator<>(elements, response, response::abort, this::resolveEntities);
+        } catch (IOException e) {
+            response.close();
+            throw failure(e);
+        }
+    }
+
+    private <T> void forEach(HttpUriRequest request, Class<T> elementType, Consumer<? super T> consumer)
+            throws UnirestException, JsonProcessingException {
+        try (JsonArrayIterator<T> elements = iterate(request, elementType)) {
+            while (elements.hasNextValue()) {
+                consumer.accept(elements.nextValue());
+            }
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    private <T> Flow.Publisher<T> publish(GetQueryParameters getQueryParameters,
+                                          PageOpener<GetQueryParameters, T> opener) {
+        GetQueryParameters query = getQueryParameters.copy();
+        int pageSize = query.getLimit() == null ? MAX_PAGE_SIZE : query.getLimit();
+        int offset = query.getOffset() == null ? 0 : query.getOffset();
+
+        return new PagedPublisher<>((pageOffset, limit) -> {
+            GetQueryParameters page = query.copy();
+            page.setOffset(pageOffset);
+            page.setLimit(limit);
+            return opener.open(page);
+        }, offset, pageSize, executor(), RequestContext.fork());
+    }
+
+    private <T> Flow.Publisher<T> publish(PostQueryParameters postQueryParameters,
+                                          PageOpener<PostQueryParameters, T> opener) {
+        PostQueryParameters query = postQueryParameters.copy();
+        int pageSize = query.getLimit() == null ? MAX_PAGE_SIZE : query.getLimit();
+        int offset = query.getOffset() == null ? 0 : query.getOffset();
+
+        return new PagedPublisher<>((pageOffset, limit) -> {
+            PostQueryParameters page = query.copy();
+            page.setOffset(pageOffset);
+            page.setLimit(limit);
+            return opener.open(page);
+        }, offset, pageSize, executor(), RequestContext.fork());
+    }
+
+    private interface PageOpener<Q, T> {
+
+        JsonArrayIterator<T> open(Q query) throws UnirestException, JsonProcessingException;
+
+    }
+
+    private ExecutorService executor() {
+        ExecutorService current = executor;
+
+        if (current == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = HolodexExecutors.newRequestExecutor();
+                }
+
+                current = executor;
+            }
+        }
+
+        return current;
+    }
+
+    private static <T> T await(Future<T> future) throws UnirestException, JsonProcessingException {
+        // A task waiting for tasks queued behind it could starve a bounded pool, so it runs them itself
+        if (future instanceof RequestTask && RequestTask.isRunningTask()) {
+            ((RequestTask<T>) future).run();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new UnirestException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof UnirestException) {
+                throw (UnirestException) cause;
+            }
+
+            if (cause instanceof JsonProcessingException) {
+                throw (JsonProcessingException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new UnirestException((Exception) cause);
+        }
+    }
+
+    private static void cancelAll(Collection<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private Response open(HttpUriRequest request) throws UnirestException {
+        request.setHeader("Accept", "application/json");
+
+        RequestContext context = RequestContext.current();
+        Deadline deadline = context == null ? null : context.getDeadline();
+        Endpoint endpoint = Endpoint.forPath(request.getURI().getPath());
+        Bulkhead bulkhead = bulkheads.get(endpoint.ordinal());
+
+        if (bulkhead != null) {
+            bulkhead.acquire(deadline);
+        }
+
+        ApiKeyPool.Lease lease = null;
+        boolean shared = false;
+
+        try {
+            RequestScheduler currentScheduler = scheduler;
+            RateLimiter limiter = rateLimiter;
+
+            if (currentScheduler != null) {
+                currentScheduler.acquire(priority(context, endpoint), deadline);
+            } else if (limiter != null) {
+                limiter.acquire(deadline);
+            }
+
+            if (apiKeyPool == null) {
+                request.setHeader("X-APIKEY", HOLODEX_API_KEY);
+            } else {
+                lease = apiKeyPool.acquire(deadline);
+                request.setHeader("X-APIKEY", lease.getKey());
+            }
+
+            if (tenantShare != null) {
+                tenantShare.acquire(deadline);
+                shared = true;
+            }
+
+            Response response = transport.execute(request);
+
+            if (tenantShare != null) {
+                response.addCloseListener(tenantShare::release);
+            }
+
+            if (lease != null) {
+                lease.onResponse(response.getStatus(), response.getHeader("Retry-After"));
+                response.addCloseListener(lease::release);
+            }
+
+            if (bulkhead != null) {
+                response.addCloseListener(bulkhead::release);
+            }
+
+            return response;
+        } catch (UnirestException | RuntimeException e) {
+            if (shared) {
+                tenantShare.release();
+            }
+
+            if (lease != null) {
+                lease.release();
+            }
+
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+
+            throw e;
+        }
+    }
+
+    private static Priority priority(RequestContext context, Endpoint endpoint) {
+        Priority priority = context == null ? null : context.getOptions().getPriority();
+
+        if (priority != null) {
+            return priority;
+        }
+
+        return endpoint == Endpoint.LIVE ? Priority.HIGH : Priority.NORMAL;
+    }
+
+    private static void checkDeadline(String what) throws DeadlineExceededException {
+        Deadline deadline = RequestContext.currentDeadline();
+
+        if (deadline != null) {
+            deadline.check(what);
+        }
+    }
+
+    // A read failing because the deadline passed and the watchdog aborted the request is reported as such
+    private static UnirestException failure(IOException e) throws JsonProcessingException {
+        Deadline deadline = RequestContext.currentDeadline();
+
+        if (deadline != null && deadline.isExpired()) {
+            return new DeadlineExceededException("Deadline exceeded while reading the response");
+        }
+
+        if (e instanceof JsonProcessingException) {
+            throw (JsonProcessingException) e;
+        }
+
+        return new UnirestException(e);
+    }
+
+    private HttpPost postRequest(String url, Object query) throws JsonProcessingException {
+        return postRequest(url, objectMapper.writeValueAsBytes(query));
+    }
+
+    private static HttpPost postRequest(String url, byte[] body) {
+        HttpPost request = new HttpPost(url);
+        request.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T resolveEntities(T value) {
+        EntityStore store = entityStore;
+
+        if (store == null) {
+            return value;
+        }
+
+        if (value instanceof Video) {
+            return (T) store.resolve((Video) value);
+        }
+
+        if (value instanceof Channel) {
+            return (T) store.resolve((Channel) value);
+        }
+
+        if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+
+            for (int i = 0; i < list.size(); i++) {
+                Object element = list.get(i);
+
+                if (element instanceof Video) {
+                    list.set(i, store.resolve((Video) element));
+                } else if (element instanceof Channel) {
+                    list.set(i, store.resolve((Channel) element));
+                }
+            }
+        }
+
+        return value;
+    }
+
+    static ObjectMapper newObjectMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .build();
+    }
+
+    private JavaType listType(Class<?> elementType) {
+        return objectMapper.getTypeFactory().constructCollectionType(List.class, elementType);
+    }
+
+    private String liveUrl(GetQueryParameters getQueryParameters) {
+        StringBuilder stringBuilder = new StringBuilder(URL + "live?");
+
+        buildGetRequest(getQueryParameters, stringBuilder);
+
+        return stringBuilder.toString();
+    }
+
+    private String videosUrl(GetQueryParameters getQueryParameters) {
+        StringBuilder stringBuilder = new StringBuilder(URL + "videos?");
+
+        buildGetRequest(getQueryParameters, stringBuilder);
+
+        return stringBuilder.toString();
+    }
+
+    private String videosRelatedToChannelUrl(GetQueryParameters getQueryParameters) {
+        if (getQueryParameters.getChannelId() == null) {
+            throw new RuntimeException("Channel ID can't be null");
+        }
+
+        if (getQueryParameters.getVideoType() == null) {
+            throw new RuntimeException("Video Type can't be null");
+        }
+
+        if (getQueryParameters.getLanguages() != null && getQueryParameters.getVideoType().equals("videos")) {
+            throw new RuntimeException("Can't filter VIDEOS by language");
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(URL + "channels/");
+
+        stringBuilder
+                .append(getQueryParameters.getChannelId())
+                .append("/")
+                .append(getQueryParameters.getVideoType())
+                .append("?");
+
+        getQueryParameters.setChannelId(null);
+        getQueryParameters.setVideoType(null);
+
+        buildGetRequest(getQueryParameters, stringBuilder);
+
+        return stringBuilder.toString();
+    }
+
+    private String liveForChannelsUrl(GetQueryParameters getQueryParameters) {
+        if (getQueryParameters.getChannelIds() == null) {
+            throw new RuntimeException("Channel IDs can't be null");
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(URL + "users/live?channels=");
+
+        buildArrayParameter(getQueryParameters.getChannelIds(), stringBuilder);
+
+        return stringBuilder.toString();
+    }
+
+    private String channelsUrl(GetQueryParameters getQueryParameters) {
+        StringBuilder stringBuilder = new StringBuilder(URL + "channels?");
+
+        buildGetRequest(getQueryParameters, stringBuilder);
+
+        return stringBuilder.toString();
     }
 
     private void buildGetRequest(GetQueryParameters getQueryParameters, StringBuilder stringBuilder) {
@@ -547,16 +2002,17 @@ public class HolodexClient {
                     .append(getQueryParameters.getVideoType());
         }
 
+        // Encoded, or the + of a positive offset would be read as a space
         if (getQueryParameters.getFrom() != null) {
             stringBuilder
                     .append("&from=")
-                    .append(getQueryParameters.getFrom());
+                    .append(URLEncoder.encode(getQueryParameters.getFrom().toString(), StandardCharsets.UTF_8));
         }
 
         if (getQueryParameters.getTo() != null) {
             stringBuilder
                     .append("&to=")
-                    .append(getQueryParameters.getTo());
+                    .append(URLEncoder.encode(getQueryParameters.getTo().toString(), StandardCharsets.UTF_8));
         }
     }
 
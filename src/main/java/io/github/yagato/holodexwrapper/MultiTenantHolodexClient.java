@@ -0,0 +1,152 @@
+package io.github.yagato.holodexwrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yagato.holodexwrapper.concurrent.FairShareLimiter;
+import io.github.yagato.holodexwrapper.concurrent.HolodexExecutors;
+import io.github.yagato.holodexwrapper.http.RateLimiter;
+import io.github.yagato.holodexwrapper.http.Transport;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serves many tenants, each with its own API key, from one transport, connection pool, parser and
+ * executor, so that the cost of the client doesn't grow with the number of tenants.
+ *
+ * <br><br>
+ *
+ * Every tenant gets a {@link HolodexClient} of its own with its own quota, and the connections are
+ * shared fairly: a tenant may use every connection the others leave idle, but under contention each
+ * one gets a share proportional to its weight, so a noisy tenant only slows itself down.
+ *
+ * <br><br>
+ *
+ * Settings of the tenant clients that live in the transport, such as
+ * {@link HolodexClient#setConcurrencyLimiter}, apply to every tenant.
+ */
+public class MultiTenantHolodexClient {
+
+    /**
+     * Connections Holodex can be sent requests on at once with the default transport.
+     */
+    public static final int DEFAULT_SHARED_CONNECTIONS = 20;
+
+    private final Transport transport;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final FairShareLimiter connections;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    public MultiTenantHolodexClient() {
+        this(Transport.fromUnirest(), HolodexExecutors.newRequestExecutor(), DEFAULT_SHARED_CONNECTIONS);
+    }
+
+    /**
+     * @param transport The transport shared by every tenant.
+     * @param executor The executor shared by every tenant.
+     * @param sharedConnections Number of requests that may be in flight at once across all tenants.
+     */
+    public MultiTenantHolodexClient(Transport transport, ExecutorService executor, int sharedConnections) {
+        this.transport = transport;
+        this.objectMapper = HolodexClient.newObjectMapper();
+        this.executor = executor;
+        this.connections = new FairShareLimiter(sharedConnections);
+    }
+
+    /**
+     * Method that adds a tenant limited to Holodex's 80 requests per 2 minutes, with a weight of 1.
+     *
+     * @param tenantId The ID of the tenant.
+     * @param holodexApiKey The API key of the tenant.
+     * @return The client of the tenant.
+     */
+    public HolodexClient addTenant(String tenantId, String holodexApiKey) {
+        return addTenant(tenantId, holodexApiKey, RateLimiter.holodexDefault(), 1);
+    }
+
+    /**
+     * Method that adds a tenant.
+     *
+     * @param tenantId The ID of the tenant.
+     * @param holodexApiKey The API key of the tenant.
+     * @param quota The rate limit of the tenant, or null for none.
+     * @param weight Share of the connections the tenant gets under contention, relative to the others.
+     * @return The client of the tenant.
+     */
+    public HolodexClient addTenant(String tenantId, String holodexApiKey, RateLimiter quota, int weight) {
+        // The share is only registered once the ID is known to be free, so that a duplicate doesn't
+        // briefly take part of the connections
+        Tenant tenant = tenants.compute(tenantId, (id, existing) -> {
+            if (existing != null) {
+                throw new RuntimeException("Tenant " + id + " already exists");
+            }
+
+            FairShareLimiter.Share share = connections.register(weight);
+            HolodexClient client = new HolodexClient(holodexApiKey, null, objectMapper, transport, share);
+            client.setExecutor(executor);
+            client.setRateLimiter(quota);
+
+            return new Tenant(client, share);
+        });
+
+        return tenant.client;
+    }
+
+    /**
+     * @param tenantId The ID of the tenant.
+     * @return The client of the tenant, or null if there is no such tenant.
+     */
+    public HolodexClient getTenant(String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+
+        return tenant == null ? null : tenant.client;
+    }
+
+    /**
+     * Method that removes a tenant. Its client must not be used afterwards.
+     *
+     * @param tenantId The ID of the tenant.
+     * @return Whether there was such a tenant.
+     */
+    public boolean removeTenant(String tenantId) {
+        Tenant tenant = tenants.remove(tenantId);
+
+        if (tenant == null) {
+            return false;
+        }
+
+        tenant.share.unregister();
+
+        return true;
+    }
+
+    /**
+     * @return A live, unmodifiable view of the IDs of the tenants.
+     */
+    public Set<String> getTenantIds() {
+        return Collections.unmodifiableSet(tenants.keySet());
+    }
+
+    /**
+     * @return The transport shared by every tenant.
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    private static final class Tenant {
+
+        private final HolodexClient client;
+        private final FairShareLimiter.Share share;
+
+        private Tenant(HolodexClient client, FairShareLimiter.Share share) {
+            this.client = client;
+            this.share = share;
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.github.yagato.holodexwrapper.cache;
+
+/**
+ * A cached value with the times it was stored and stops being fresh, in epoch milliseconds.
+ */
+public final class CacheEntry<V> {
+
+    private final V value;
+    private final long storedAt;
+    private final long expiresAt;
+
+    public CacheEntry(V value, long storedAt, long expiresAt) {
+        this.value = value;
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return The value.
+     */
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * @return When the entry was stored, in epoch milliseconds.
+     */
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    /**
+     * @return When the entry stops being fresh, in epoch milliseconds.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return Whether the entry is no longer fresh.
+     */
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAt;
+    }
+
+}
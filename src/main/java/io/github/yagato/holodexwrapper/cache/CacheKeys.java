@@ -0,0 +1,164 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yagato.holodexwrapper.constants.SortOrder;
+import io.github.yagato.holodexwrapper.model.PostQueryParameters;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Builds cache keys that are the same for logically identical queries: parameters are sorted, array
+ * parameters are sorted and deduplicated, defaults are applied, timestamps are normalized to UTC, and
+ * the canonical query is hashed so that keys stay small whatever the number of parameters.
+ */
+public final class CacheKeys {
+
+    // Comma-separated GET parameters whose order doesn't matter
+    private static final Set<String> ARRAY_PARAMETERS = Set.of("lang", "include", "channels");
+
+    // GET parameters whose value is a timestamp
+    private static final Set<String> TIMESTAMP_PARAMETERS = Set.of("from", "to");
+
+    // Collections whose {collection}/{id} path looks up a single resource
+    private static final Set<String> ID_LOOKUPS = Set.of("channels", "videos");
+
+    private static final int DEFAULT_POST_OFFSET = 0;
+    private static final int DEFAULT_POST_LIMIT = 30;
+
+    private CacheKeys() {
+    }
+
+    /**
+     * @param relativeUrl A GET request URL relative to the API root, e.g. {@code videos?&lang=ja,en}.
+     * @return Its cache key.
+     */
+    public static String forGet(String relativeUrl) {
+        int queryStart = relativeUrl.indexOf('?');
+
+        if (queryStart < 0) {
+            return relativeUrl;
+        }
+
+        String path = relativeUrl.substring(0, queryStart);
+        List<String> parameters = new ArrayList<>();
+
+        for (String parameter : relativeUrl.substring(queryStart + 1).split("&")) {
+            int separator = parameter.indexOf('=');
+
+            if (separator <= 0 || separator == parameter.length() - 1) {
+                continue;
+            }
+
+            String name = parameter.substring(0, separator);
+            String value = parameter.substring(separator + 1);
+
+            if (ARRAY_PARAMETERS.contains(name)) {
+                value = String.join(",", new TreeSet<>(Arrays.asList(value.split(","))));
+            } else if (TIMESTAMP_PARAMETERS.contains(name)) {
+                value = normalizeTimestamp(value);
+            } else if (name.equals("offset") && value.equals("0")) {
+                continue;
+            }
+
+            parameters.add(name + "=" + value);
+        }
+
+        if (parameters.isEmpty()) {
+            return path;
+        }
+
+        Collections.sort(parameters);
+
+        return path + "#" + hash(String.join("&", parameters).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param key The cache key of a GET request.
+     * @return The key of the channel or video it looks up by ID whatever its query parameters, e.g. to
+     *         remember that the resource is missing, or null if the request isn't such a lookup.
+     */
+    public static String resourceOf(String key) {
+        int hash = key.indexOf('#');
+        String path = hash < 0 ? key : key.substring(0, hash);
+        int separator = path.indexOf('/');
+
+        if (separator < 0 || separator == path.length() - 1 || path.indexOf('/', separator + 1) >= 0) {
+            return null;
+        }
+
+        return ID_LOOKUPS.contains(path.substring(0, separator)) ? path : null;
+    }
+
+    /**
+     * @param relativeUrl A POST request URL relative to the API root, e.g. {@code search/videoSearch}.
+     * @param postQueryParameters The body of the request.
+     * @param objectMapper The mapper the body is serialized with.
+     * @return Its cache key.
+     * @throws JsonProcessingException If the body can't be serialized.
+     */
+    public static String forPost(String relativeUrl, PostQueryParameters postQueryParameters, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        PostQueryParameters canonical = postQueryParameters.copy();
+
+        canonical.setSort(canonical.getSort() == null ? SortOrder.NEWEST : canonical.getSort());
+        canonical.setOffset(canonical.getOffset() == null ? DEFAULT_POST_OFFSET : canonical.getOffset());
+        canonical.setLimit(canonical.getLimit() == null ? DEFAULT_POST_LIMIT : canonical.getLimit());
+        canonical.setLanguage(sorted(canonical.getLanguage()));
+        canonical.setVideoTypes(sorted(canonical.getVideoTypes()));
+        canonical.setConditions(sorted(canonical.getConditions()));
+        canonical.setComment(sorted(canonical.getComment()));
+        canonical.setTopics(sorted(canonical.getTopics()));
+        canonical.setChannelIds(sorted(canonical.getChannelIds()));
+        canonical.setOrganizations(sorted(canonical.getOrganizations()));
+
+        return relativeUrl + "#" + hash(objectMapper.writeValueAsBytes(canonical));
+    }
+
+    // Sorted and deduplicated, with empty arrays meaning the same as none
+    private static String[] sorted(String[] array) {
+        if (array == null || array.length == 0) {
+            return null;
+        }
+
+        return new TreeSet<>(Arrays.asList(array)).toArray(new String[0]);
+    }
+
+    // Timestamps are URL-encoded in requests
+    private static String normalizeTimestamp(String value) {
+        try {
+            return OffsetDateTime.parse(URLDecoder.decode(value, StandardCharsets.UTF_8)).toInstant().toString();
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    // First 128 bits of the SHA-256, in hex
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder stringBuilder = new StringBuilder(32);
+
+            for (int i = 0; i < 16; i++) {
+                stringBuilder.append(Character.forDigit((digest[i] >> 4) & 0xf, 16))
+                        .append(Character.forDigit(digest[i] & 0xf, 16));
+            }
+
+            return stringBuilder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * How the responses of one class of endpoints are cached, see {@link HolodexCache#setPolicy}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachePolicy {
+
+    /**
+     * How long a response is fresh.
+     */
+    private Duration ttl;
+
+    /**
+     * How long after expiring a response may still be returned while it's refreshed in the
+     * background. Null to always wait for the refresh.
+     */
+    private Duration staleWhileRevalidate;
+
+    /**
+     * How long after expiring a response may still be returned when refreshing it fails, e.g. while
+     * Holodex is down. Null to always report the failure.
+     */
+    private Duration staleIfError;
+
+    /**
+     * How long to remember that a channel or video looked up by ID was missing or invalid, failing
+     * lookups of it again without sending a request. Null to not remember it. See
+     * {@link HolodexCache#isMissing}.
+     */
+    private Duration negativeTtl;
+
+    /**
+     * Whether fresh cached responses are returned instead of sending a request.
+     */
+    private boolean readThrough = true;
+
+    /**
+     * Whether received responses are stored.
+     */
+    private boolean writeThrough = true;
+
+    /**
+     * Whether the on-heap tier is used.
+     */
+    private boolean l1 = true;
+
+    /**
+     * Whether the second tier, if any, is used.
+     */
+    private boolean l2 = true;
+
+    /**
+     * @param ttl How long a response is fresh.
+     * @return A policy reading and writing through both tiers.
+     */
+    public static CachePolicy ttl(Duration ttl) {
+        CachePolicy policy = new CachePolicy();
+        policy.setTtl(ttl);
+
+        return policy;
+    }
+
+    /**
+     * @return How long after expiring a response is worth keeping for stale reads, in milliseconds.
+     */
+    public long maxStalenessMillis() {
+        long staleWhileRevalidateMillis = staleWhileRevalidate == null ? 0 : staleWhileRevalidate.toMillis();
+        long staleIfErrorMillis = staleIfError == null ? 0 : staleIfError.toMillis();
+
+        return Math.max(staleWhileRevalidateMillis, staleIfErrorMillis);
+    }
+
+    /**
+     * @param entry A cached entry.
+     * @return Whether the entry may be returned while it's refreshed in the background.
+     */
+    public boolean canServeWhileRevalidating(CacheEntry<?> entry) {
+        return staleWhileRevalidate != null
+                && System.currentTimeMillis() < entry.getExpiresAt() + staleWhileRevalidate.toMillis();
+    }
+
+    /**
+     * @param entry A cached entry.
+     * @return Whether the entry may be returned instead of an error.
+     */
+    public boolean canServeOnError(CacheEntry<?> entry) {
+        return staleIfError != null && System.currentTimeMillis() < entry.getExpiresAt() + staleIfError.toMillis();
+    }
+
+}
@@ -0,0 +1,41 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import java.io.IOException;
+
+/**
+ * A second-level cache of serialized responses, e.g. {@link MappedFileCache} on one host or a
+ * networked store shared by several. Values are the raw JSON bodies received from Holodex, so any
+ * store that can keep bytes under a string key can be plugged in.
+ *
+ * <br><br>
+ *
+ * Implementations must be thread-safe. Failures are reported with IOException; the client treats
+ * them as misses and keeps going.
+ */
+public interface CacheTier {
+
+    /**
+     * @param key The key of the entry.
+     * @return The entry, expired or not, or null if it's absent.
+     * @throws IOException If the tier can't be read.
+     */
+    CacheEntry<byte[]> get(String key) throws IOException;
+
+    /**
+     * Stores an entry, replacing any entry with the same key.
+     *
+     * @param key The key of the entry.
+     * @param entry The entry.
+     * @throws IOException If the tier can't be written.
+     */
+    void put(String key, CacheEntry<byte[]> entry) throws IOException;
+
+    /**
+     * Removes an entry.
+     *
+     * @param key The key of the entry.
+     * @throws IOException If the tier can't be written.
+     */
+    void remove(String key) throws IOException;
+
+}
@@ -0,0 +1,245 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Second-level cache kept on the heap as Deflate-compressed JSON, bounded by a number of entries and
+ * evicting the least recently used one.
+ *
+ * <br><br>
+ *
+ * Holodex responses are repetitive JSON, which typically compresses to a tenth of its size or less,
+ * while their decoded form takes several times the size of the JSON. Used as the second tier of a
+ * {@link HolodexCache} behind a small {@link HeapCache}, rarely read responses cost their compressed
+ * size and only the hot ones are kept decoded; a hit here is inflated and decoded once, then promoted
+ * to the first tier.
+ *
+ * <br><br>
+ *
+ * Deflaters and Inflaters are pooled, and compression happens outside the lock.
+ */
+public class CompressedHeapCache implements CacheTier, Reclaimable {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    private static final int POOLED_CODECS = 16;
+
+    private final int maxEntries;
+    private final int level;
+    private final LinkedHashMap<String, Compressed> entries;
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOLED_CODECS);
+    private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOLED_CODECS);
+    private long compressedBytes;
+    private long uncompressedBytes;
+
+    public CompressedHeapCache() {
+        this(DEFAULT_MAX_ENTRIES, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param maxEntries Maximum number of entries.
+     * @param level Deflate compression level, from {@link Deflater#BEST_SPEED} to
+     *              {@link Deflater#BEST_COMPRESSION}.
+     */
+    public CompressedHeapCache(int maxEntries, int level) {
+        this.maxEntries = maxEntries;
+        this.level = level;
+        this.entries = new LinkedHashMap<String, Compressed>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Compressed> eldest) {
+                if (size() <= CompressedHeapCache.this.maxEntries) {
+                    return false;
+                }
+
+                account(eldest.getValue(), -1);
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public CacheEntry<byte[]> get(String key) throws IOException {
+        Compressed compressed;
+
+        synchronized (this) {
+            compressed = entries.get(key);
+        }
+
+        if (compressed == null) {
+            return null;
+        }
+
+        return new CacheEntry<>(inflate(compressed), compressed.storedAt, compressed.expiresAt);
+    }
+
+    @Override
+    public void put(String key, CacheEntry<byte[]> entry) {
+        byte[] value = entry.getValue();
+        Compressed compressed = new Compressed(deflate(value), value.length, entry.getStoredAt(), entry.getExpiresAt());
+
+        synchronized (this) {
+            account(entries.put(key, compressed), -1);
+            account(compressed, 1);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        account(entries.remove(key), -1);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        compressedBytes = 0;
+        uncompressedBytes = 0;
+    }
+
+    /**
+     * @return Number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Total size of the stored entries, compressed.
+     */
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * @return Total size the stored entries would take uncompressed.
+     */
+    public synchronized long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * @return Total size of the stored entries, compressed, plus their bookkeeping.
+     */
+    @Override
+    public synchronized long getRetainedBytes() {
+        return compressedBytes + (long) entries.size() * HeapCache.ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Evicts the least recently used entries until they take at most the given size.
+     *
+     * @param bytes The number of bytes to keep.
+     */
+    @Override
+    public synchronized void trimTo(long bytes) {
+        Iterator<Compressed> eldest = entries.values().iterator();
+
+        while (getRetainedBytes() > bytes && eldest.hasNext()) {
+            account(eldest.next(), -1);
+            eldest.remove();
+        }
+    }
+
+    // Called with the lock held
+    private void account(Compressed compressed, int sign) {
+        if (compressed != null) {
+            compressedBytes += sign * compressed.data.length;
+            uncompressedBytes += sign * compressed.length;
+        }
+    }
+
+    private byte[] deflate(byte[] value) {
+        Deflater deflater = deflaters.poll();
+
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+
+        try {
+            deflater.setInput(value);
+            deflater.finish();
+
+            byte[] output = new byte[Math.max(64, value.length / 4)];
+            int length = 0;
+
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+
+                length += deflater.deflate(output, length, output.length - length);
+            }
+
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.reset();
+
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    private byte[] inflate(Compressed compressed) throws IOException {
+        Inflater inflater = inflaters.poll();
+
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+
+        try {
+            byte[] output = new byte[compressed.length];
+            int length = 0;
+
+            inflater.setInput(compressed.data);
+
+            // The uncompressed length is known, so the output is allocated once
+            while (length < output.length && !inflater.finished()) {
+                int inflated = inflater.inflate(output, length, output.length - length);
+
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated cache entry");
+                }
+
+                length += inflated;
+            }
+
+            return output;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt cache entry", e);
+        } finally {
+            inflater.reset();
+
+            if (!inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static final class Compressed {
+
+        final byte[] data;
+        final int length;
+        final long storedAt;
+        final long expiresAt;
+
+        Compressed(byte[] data, int length, long storedAt, long expiresAt) {
+            this.data = data;
+            this.length = length;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * First-level cache of decoded values, kept on the heap and bounded by a number of entries and by
+ * their estimated size in bytes, evicting the least recently used ones.
+ *
+ * <br><br>
+ *
+ * Decoded values can't be measured cheaply, so every entry is given a weight when it's stored,
+ * usually estimated from the size of the JSON it was decoded from, see {@link #weigh(int)}.
+ */
+public class HeapCache implements Reclaimable {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * Estimated bytes taken by an entry besides its value: the map entry, the key and the holders.
+     */
+    public static final int ENTRY_OVERHEAD = 160;
+
+    /**
+     * Estimated heap bytes per byte of JSON once decoded: object headers, references, boxed numbers
+     * and one String per field outweigh the quotes and punctuation they replace.
+     */
+    public static final int DECODED_BYTES_PER_JSON_BYTE = 3;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Weighted> entries;
+    private long retainedBytes;
+
+    public HeapCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries Maximum number of entries.
+     */
+    public HeapCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxEntries Maximum number of entries.
+     * @param maxBytes Maximum total weight of the entries.
+     */
+    public HeapCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<String, Weighted>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Weighted> eldest) {
+                if (size() <= HeapCache.this.maxEntries) {
+                    return false;
+                }
+
+                retainedBytes -= eldest.getValue().weight;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param jsonLength Size of the JSON a value was decoded from.
+     * @return The estimated weight of an entry holding the decoded value.
+     */
+    public static long weigh(int jsonLength) {
+        return ENTRY_OVERHEAD + (long) jsonLength * DECODED_BYTES_PER_JSON_BYTE;
+    }
+
+    /**
+     * @param key The key of the entry.
+     * @return The entry, expired or not, or null if it's absent.
+     */
+    public synchronized CacheEntry<Object> get(String key) {
+        Weighted weighted = entries.get(key);
+
+        return weighted == null ? null : weighted.entry;
+    }
+
+    /**
+     * Stores an entry weighing {@link #ENTRY_OVERHEAD}, replacing any entry with the same key.
+     *
+     * @param key The key of the entry.
+     * @param entry The entry.
+     */
+    public void put(String key, CacheEntry<Object> entry) {
+        put(key, entry, ENTRY_OVERHEAD);
+    }
+
+    /**
+     * Stores an entry, replacing any entry with the same key, then evicts the least recently used
+     * entries while the cache is over its size.
+     *
+     * @param key The key of the entry.
+     * @param entry The entry.
+     * @param weight The estimated size of the entry in bytes, see {@link #weigh(int)}.
+     */
+    public synchronized void put(String key, CacheEntry<Object> entry, long weight) {
+        Weighted previous = entries.put(key, new Weighted(entry, weight));
+
+        if (previous != null) {
+            retainedBytes -= previous.weight;
+        }
+
+        retainedBytes += weight;
+        evict(maxBytes);
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key The key of the entry.
+     */
+    public synchronized void remove(String key) {
+        Weighted removed = entries.remove(key);
+
+        if (removed != null) {
+            retainedBytes -= removed.weight;
+        }
+    }
+
+    /**
+     * @return A copy of the entries, from the least to the most recently used.
+     */
+    public synchronized Map<String, CacheEntry<Object>> copy() {
+        Map<String, CacheEntry<Object>> copy = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Weighted> entry : entries.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().entry);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        retainedBytes = 0;
+    }
+
+    /**
+     * @return Number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Total weight of the entries.
+     */
+    @Override
+    public synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Evicts the least recently used entries until their total weight is at most the given size.
+     *
+     * @param bytes The number of bytes to keep.
+     */
+    @Override
+    public synchronized void trimTo(long bytes) {
+        evict(bytes);
+    }
+
+    // Called with the lock held
+    private void evict(long bytes) {
+        Iterator<Weighted> eldest = entries.values().iterator();
+
+        while (retainedBytes > bytes && eldest.hasNext()) {
+            retainedBytes -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    private static final class Weighted {
+
+        final CacheEntry<Object> entry;
+        final long weight;
+
+        Weighted(CacheEntry<Object> entry, long weight) {
+            this.entry = entry;
+            this.weight = weight;
+        }
+
+    }
+
+}
@@ -0,0 +1,396 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import io.github.yagato.holodexwrapper.Endpoint;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The response cache of a {@link io.github.yagato.holodexwrapper.HolodexClient}: an on-heap tier of
+ * decoded values in front of an optional, pluggable second tier of serialized responses.
+ *
+ * <br><br>
+ *
+ * Only endpoints with a {@link CachePolicy} are cached. Lookups try the first tier, then the second,
+ * whose hits are decoded once and promoted to the first; responses are written to the tiers the
+ * policy allows. Errors of the second tier are treated as misses.
+ *
+ * <br><br>
+ *
+ * A small first tier in front of a {@link CompressedHeapCache} keeps only the hot responses decoded
+ * and the rest compressed, for a fraction of the memory.
+ */
+public class HolodexCache implements Reclaimable {
+
+    private final HeapCache l1;
+    private final CacheTier l2;
+    private final NegativeCache missing;
+    private final AtomicLong skippedExportCount = new AtomicLong();
+    private final AtomicReferenceArray<CachePolicy> policies = new AtomicReferenceArray<>(Endpoint.values().length);
+    private volatile MemoryBudget memoryBudget;
+
+    /**
+     * @param l1 The on-heap tier.
+     * @param l2 The second tier, or null for none.
+     */
+    public HolodexCache(HeapCache l1, CacheTier l2) {
+        this(l1, l2, new NegativeCache());
+    }
+
+    /**
+     * @param l1 The on-heap tier.
+     * @param l2 The second tier, or null for none.
+     * @param missing Where resources known to be missing are remembered.
+     */
+    public HolodexCache(HeapCache l1, CacheTier l2, NegativeCache missing) {
+        this.l1 = l1;
+        this.l2 = l2;
+        this.missing = missing;
+    }
+
+    /**
+     * @param endpoint The class of endpoints.
+     * @param policy How to cache their responses, or null to not cache them.
+     */
+    public void setPolicy(Endpoint endpoint, CachePolicy policy) {
+        policies.set(endpoint.ordinal(), policy);
+    }
+
+    /**
+     * @param endpoint The class of endpoints.
+     * @return How their responses are cached, or null if they aren't.
+     */
+    public CachePolicy getPolicy(Endpoint endpoint) {
+        return policies.get(endpoint.ordinal());
+    }
+
+    /**
+     * Looks up a fresh response.
+     *
+     * @param policy The policy of the endpoint.
+     * @param key The key of the response.
+     * @param decoder Decodes the response if it comes from the second tier.
+     * @return The decoded response, or null on a miss.
+     */
+    public <T> T get(CachePolicy policy, String key, Decoder<T> decoder) {
+        CacheEntry<T> entry = lookup(policy, key, decoder);
+
+        return entry == null || entry.isExpired() ? null : entry.getValue();
+    }
+
+    /**
+     * Looks up a response, fresh or expired for no longer than the policy allows stale reads, see
+     * {@link CachePolicy#maxStalenessMillis()}.
+     *
+     * @param policy The policy of the endpoint.
+     * @param key The key of the response.
+     * @param decoder Decodes the response if it comes from the second tier.
+     * @return The entry, or null on a miss.
+     */
+    public <T> CacheEntry<T> lookup(CachePolicy policy, String key, Decoder<T> decoder) {
+        long oldestUsable = System.currentTimeMillis() - policy.maxStalenessMillis();
+        CacheEntry<T> stale = null;
+
+        if (policy.isL1()) {
+            CacheEntry<T> entry = fromL1(key, decoder);
+
+            if (entry != null && !entry.isExpired()) {
+                return entry;
+            }
+
+            if (entry != null && entry.getExpiresAt() > oldestUsable) {
+                stale = entry;
+            }
+        }
+
+        if (l2 == null || !policy.isL2()) {
+            return stale;
+        }
+
+        try {
+            CacheEntry<byte[]> serialized = l2.get(key);
+
+            // Another process may have refreshed the second tier since the first was filled
+            if (serialized == null || serialized.getExpiresAt() <= oldestUsable
+                    || stale != null && serialized.getExpiresAt() <= stale.getExpiresAt()) {
+                return stale;
+            }
+
+            CacheEntry<T> entry = new CacheEntry<>(decoder.decode(serialized.getValue()), serialized.getStoredAt(),
+                    serialized.getExpiresAt());
+
+            if (policy.isL1()) {
+                @SuppressWarnings("unchecked")
+                CacheEntry<Object> promoted = (CacheEntry<Object>) entry;
+                l1.put(key, promoted, HeapCache.weigh(serialized.getValue().length));
+                enforceMemoryBudget();
+            }
+
+            return entry;
+        } catch (IOException e) {
+            return stale;
+        }
+    }
+
+    // Decodes values restored in their serialized form the first time they're looked up
+    private <T> CacheEntry<T> fromL1(String key, Decoder<T> decoder) {
+        CacheEntry<Object> entry = l1.get(key);
+
+        if (entry == null || !(entry.getValue() instanceof SerializedValue)) {
+            @SuppressWarnings("unchecked")
+            CacheEntry<T> decoded = (CacheEntry<T>) (CacheEntry<?>) entry;
+
+            return decoded;
+        }
+
+        try {
+            byte[] bytes = ((SerializedValue) entry.getValue()).getBytes();
+            T value = decoder.decode(bytes);
+            CacheEntry<T> decoded = new CacheEntry<>(value, entry.getStoredAt(), entry.getExpiresAt());
+
+            @SuppressWarnings("unchecked")
+            CacheEntry<Object> promoted = (CacheEntry<Object>) decoded;
+            l1.put(key, promoted, HeapCache.weigh(bytes.length));
+            enforceMemoryBudget();
+
+            return decoded;
+        } catch (IOException e) {
+            l1.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Serializes the entries of the on-heap tier, e.g. to write a snapshot of it.
+     *
+     * @param encoder Serializes a decoded value back to JSON.
+     * @return The serialized entries, from the least to the most recently used. Values that can't be
+     *         serialized are left out and counted, see {@link #getSkippedExportCount()}.
+     */
+    public Map<String, CacheEntry<byte[]>> exportL1(Encoder encoder) {
+        Map<String, CacheEntry<byte[]>> exported = new LinkedHashMap<>();
+
+        for (Map.Entry<String, CacheEntry<Object>> entry : l1.copy().entrySet()) {
+            CacheEntry<Object> cached = entry.getValue();
+            Object value = cached.getValue();
+
+            try {
+                byte[] bytes = value instanceof SerializedValue
+                        ? ((SerializedValue) value).getBytes()
+                        : encoder.encode(value);
+
+                exported.put(entry.getKey(), new CacheEntry<>(bytes, cached.getStoredAt(), cached.getExpiresAt()));
+            } catch (IOException e) {
+                // The snapshot is best effort
+                skippedExportCount.incrementAndGet();
+            }
+        }
+
+        return exported;
+    }
+
+    /**
+     * Stores a serialized response in the on-heap tier, e.g. when restoring a snapshot. It's decoded
+     * by the first lookup of its key.
+     *
+     * @param key The key of the response.
+     * @param entry The serialized response.
+     */
+    public void importL1(String key, CacheEntry<byte[]> entry) {
+        byte[] bytes = entry.getValue();
+
+        // Weighed as if decoded, like the entry it becomes on its first lookup
+        l1.put(key, new CacheEntry<>(new SerializedValue(bytes), entry.getStoredAt(), entry.getExpiresAt()),
+                HeapCache.weigh(bytes.length));
+    }
+
+    /**
+     * Stores a response received from Holodex.
+     *
+     * @param policy The policy of the endpoint.
+     * @param key The key of the response.
+     * @param body The buffer holding the serialized response.
+     * @param length Length of the serialized response.
+     * @param value The decoded response.
+     */
+    public void put(CachePolicy policy, String key, byte[] body, int length, Object value) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + policy.getTtl().toMillis();
+
+        if (policy.isL1()) {
+            l1.put(key, new CacheEntry<>(value, now, expiresAt), HeapCache.weigh(length));
+        }
+
+        if (l2 != null && policy.isL2()) {
+            try {
+                l2.put(key, new CacheEntry<>(Arrays.copyOf(body, length), now, expiresAt));
+            } catch (IOException ignored) {
+                // The second tier is best effort
+            }
+        }
+
+        if (policy.isL1() || l2 instanceof Reclaimable && policy.isL2()) {
+            enforceMemoryBudget();
+        }
+    }
+
+    /**
+     * Statuses meaning the requested resource doesn't exist: 404 and 410, and 400 (malformed ID) for
+     * lookups by ID. A 400 from any other endpoint is about the query rather than a resource.
+     *
+     * @param status An HTTP status.
+     * @param idLookup Whether the request looked up a single resource by ID, see {@link CacheKeys#resourceOf}.
+     * @return Whether it means the requested resource doesn't exist.
+     */
+    public static boolean isMissing(int status, boolean idLookup) {
+        return status == 404 || status == 410 || status == 400 && idLookup;
+    }
+
+    /**
+     * @param policy The policy of the endpoint.
+     * @param key The key of the resource, see {@link CacheKeys#resourceOf}.
+     * @return The status Holodex answered the last lookup of the resource with, if it was missing
+     *         within the policy's negative TTL, otherwise 0.
+     */
+    public int getMissingStatus(CachePolicy policy, String key) {
+        return policy.getNegativeTtl() == null || !policy.isReadThrough() ? 0 : missing.get(key);
+    }
+
+    /**
+     * Remembers that a resource is missing, if the policy caches such outcomes.
+     *
+     * @param policy The policy of the endpoint.
+     * @param key The key of the resource, see {@link CacheKeys#resourceOf}.
+     * @param status The status Holodex answered with, see {@link #isMissing(int, boolean)}.
+     */
+    public void putMissing(CachePolicy policy, String key, int status) {
+        if (policy.getNegativeTtl() != null && policy.isWriteThrough() && isMissing(status, true)) {
+            missing.put(key, status, System.currentTimeMillis() + policy.getNegativeTtl().toMillis());
+        }
+    }
+
+    /**
+     * Removes a response from both tiers, and forgets that the resource it looks up is missing.
+     *
+     * @param key The key of the response.
+     */
+    public void invalidate(String key) {
+        String resource = CacheKeys.resourceOf(key);
+
+        l1.remove(key);
+
+        if (resource != null) {
+            missing.remove(resource);
+        }
+
+        if (l2 != null) {
+            try {
+                l2.remove(key);
+            } catch (IOException ignored) {
+                // It will expire eventually
+            }
+        }
+    }
+
+    /**
+     * @return Estimated size of the on-heap tier, plus the second tier's if it's kept on the heap too.
+     */
+    @Override
+    public long getRetainedBytes() {
+        return l1.getRetainedBytes() + (l2 instanceof Reclaimable ? ((Reclaimable) l2).getRetainedBytes() : 0);
+    }
+
+    /**
+     * Shrinks the tiers kept on the heap in proportion to their size.
+     *
+     * @param bytes The number of bytes to keep.
+     */
+    @Override
+    public void trimTo(long bytes) {
+        long retained = getRetainedBytes();
+
+        if (retained <= bytes) {
+            return;
+        }
+
+        double ratio = (double) bytes / retained;
+
+        l1.trimTo((long) (l1.getRetainedBytes() * ratio));
+
+        if (l2 instanceof Reclaimable) {
+            Reclaimable tier = (Reclaimable) l2;
+            tier.trimTo((long) (tier.getRetainedBytes() * ratio));
+        }
+    }
+
+    /**
+     * @param memoryBudget The budget enforced whenever a response is added to a tier kept on the heap,
+     *                     or null. Set by {@link io.github.yagato.holodexwrapper.HolodexClient#setMemoryBudget}.
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * @return The on-heap tier.
+     */
+    public HeapCache getL1() {
+        return l1;
+    }
+
+    /**
+     * @return The second tier, or null if there is none.
+     */
+    public CacheTier getL2() {
+        return l2;
+    }
+
+    /**
+     * @return Number of entries left out of exports, and so of snapshots, because they couldn't be
+     *         serialized.
+     */
+    public long getSkippedExportCount() {
+        return skippedExportCount.get();
+    }
+
+    /**
+     * @return Where resources known to be missing are remembered.
+     */
+    public NegativeCache getNegativeCache() {
+        return missing;
+    }
+
+    private void enforceMemoryBudget() {
+        MemoryBudget budget = memoryBudget;
+
+        if (budget != null) {
+            budget.enforce();
+        }
+    }
+
+    /**
+     * Serializes a decoded response. It's called without any lock held, so it has to take the locks of
+     * values shared with other threads itself, like the entities of an identity map.
+     */
+    @FunctionalInterface
+    public interface Encoder {
+
+        byte[] encode(Object value) throws IOException;
+
+    }
+
+    /**
+     * Decodes a serialized response.
+     */
+    @FunctionalInterface
+    public interface Decoder<T> {
+
+        T decode(byte[] body) throws IOException;
+
+    }
+
+}
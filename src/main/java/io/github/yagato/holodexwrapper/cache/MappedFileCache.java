@@ -0,0 +1,429 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Off-heap cache of serialized entries kept in a memory-mapped file, shared by every process on the
+ * host that maps it and surviving restarts. Usable as the second tier of a {@link HolodexCache}.
+ *
+ * <br><br>
+ *
+ * The file holds a hash index of fixed-size slots followed by a circular log of entries. Writers
+ * append to the log under a file lock and then publish the entry in its slot; readers don't lock:
+ * they read slots under a sequence counter and check, after copying an entry, that the log hasn't
+ * wrapped over it in the meantime. Nothing is copied to the heap until an entry is read, and then
+ * only that entry. Old entries are overwritten as the log wraps around, oldest first.
+ *
+ * <br><br>
+ *
+ * File locks are held by the whole process, so instances mapping the same file in one process also
+ * take turns on a lock shared between them. Expiry times are wall-clock milliseconds, and all
+ * processes must use the same byte order, i.e. run on the same host.
+ */
+public class MappedFileCache implements CacheTier, Closeable {
+
+    public static final int DEFAULT_SLOTS = 65536;
+    public static final long DEFAULT_DATA_BYTES = 64L * 1024 * 1024;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long MAGIC = 0x484F4C4F43414348L;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int WRITE_POSITION_OFFSET = 24;
+    private static final int SLOT_BYTES = 48;
+    private static final int MAX_PROBES = 16;
+    private static final int MAX_READ_ATTEMPTS = 10000;
+
+    // One lock per file mapped in this process, since a process can't hold overlapping file locks
+    private static final ConcurrentMap<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    // Offsets within a slot
+    private static final int SEQUENCE = 0;
+    private static final int KEY_HASH = 8;
+    private static final int POSITION = 16;
+    private static final int LENGTH = 24;
+    private static final int EXPIRES_AT = 32;
+    private static final int STORED_AT = 40;
+
+    private final FileChannel channel;
+    private final Object processLock;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final long capacity;
+    private final int dataOffset;
+
+    /**
+     * Maps the file with {@link #DEFAULT_SLOTS} slots and {@link #DEFAULT_DATA_BYTES} of entries,
+     * creating it if needed.
+     *
+     * @param file The file shared by the processes.
+     * @throws IOException If the file can't be created or mapped.
+     */
+    public MappedFileCache(Path file) throws IOException {
+        this(file, DEFAULT_SLOTS, DEFAULT_DATA_BYTES);
+    }
+
+    /**
+     * Maps the file, creating it with the given sizes if needed. An existing file keeps its sizes.
+     *
+     * @param file The file shared by the processes.
+     * @param slots Maximum number of entries, if the file is created.
+     * @param dataBytes Size of the entry log, if the file is created.
+     * @throws IOException If the file can't be created or mapped, or isn't a cache file.
+     */
+    public MappedFileCache(Path file, int slots, long dataBytes) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            processLock = PROCESS_LOCKS.computeIfAbsent(file.toRealPath(), path -> new Object());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        synchronized (processLock) {
+            try (FileLock ignored = channel.lock()) {
+                buffer = map(file, slots, dataBytes);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        this.slots = buffer.getInt(SLOTS_OFFSET);
+        this.capacity = buffer.getLong(CAPACITY_OFFSET);
+        this.dataOffset = HEADER_BYTES + this.slots * SLOT_BYTES;
+    }
+
+    private MappedByteBuffer map(Path file, int slots, long dataBytes) throws IOException {
+        // A process that died after sizing the file but before writing its header leaves it blank
+        if (channel.size() != 0 && isHeaderBlank()) {
+            channel.truncate(0);
+        }
+
+        if (channel.size() == 0) {
+            long size = HEADER_BYTES + (long) slots * SLOT_BYTES + dataBytes;
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("A cache file can't be larger than 2 GiB");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            header.putLong(0, MAGIC);
+            header.putInt(SLOTS_OFFSET, slots);
+            header.putLong(CAPACITY_OFFSET, dataBytes);
+
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            channel.write(header, 0);
+        }
+
+        long size = channel.size();
+
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            throw new IOException(file + " isn't a cache file");
+        }
+
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mapped.order(ByteOrder.nativeOrder());
+
+        int mappedSlots = mapped.getInt(SLOTS_OFFSET);
+
+        if (mapped.getLong(0) != MAGIC || mappedSlots < 1
+                || HEADER_BYTES + (long) mappedSlots * SLOT_BYTES + mapped.getLong(CAPACITY_OFFSET) != size) {
+            throw new IOException(file + " isn't a cache file");
+        }
+
+        return mapped;
+    }
+
+    private boolean isHeaderBlank() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        int read = 0;
+
+        while (header.hasRemaining() && read >= 0) {
+            read = channel.read(header, header.position());
+        }
+
+        for (int i = 0; i < header.position(); i++) {
+            if (header.get(i) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param key The key of the entry.
+     * @return A copy of the entry's value, or null if it's absent or expired.
+     */
+    public byte[] getValue(String key) {
+        CacheEntry<byte[]> entry = get(key);
+
+        return entry == null || entry.isExpired() ? null : entry.getValue();
+    }
+
+    /**
+     * @param key The key of the entry.
+     * @return A copy of the entry, including expired ones still in the file, or null if it's absent.
+     */
+    @Override
+    public CacheEntry<byte[]> get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+
+        for (int probe = 0; probe < MAX_PROBES && probe < slots; probe++) {
+            int slot = slotOffset(hash, probe);
+            long[] fields = readSlot(slot);
+
+            if (fields == null || fields[1] != hash) {
+                continue;
+            }
+
+            byte[] record = readRecord(fields[2], (int) fields[3]);
+
+            if (record == null) {
+                return null;
+            }
+
+            int keyLength = ByteBuffer.wrap(record).getInt();
+
+            if (keyLength != keyBytes.length
+                    || !Arrays.equals(record, 4, 4 + keyLength, keyBytes, 0, keyBytes.length)) {
+                return null;
+            }
+
+            return new CacheEntry<>(Arrays.copyOfRange(record, 4 + keyLength, record.length), fields[5], fields[4]);
+        }
+
+        return null;
+    }
+
+    /**
+     * Stores an entry, replacing any entry with the same key. Entries larger than a quarter of the log
+     * aren't stored.
+     *
+     * @param key The key of the entry.
+     * @param value The serialized value.
+     * @param offset Offset of the value in the array.
+     * @param length Length of the value.
+     * @param ttl How long the entry is fresh.
+     * @throws IOException If the file can't be locked.
+     */
+    public void put(String key, byte[] value, int offset, int length, Duration ttl) throws IOException {
+        long now = System.currentTimeMillis();
+
+        put(key, value, offset, length, now, now + ttl.toMillis());
+    }
+
+    @Override
+    public void put(String key, CacheEntry<byte[]> entry) throws IOException {
+        byte[] value = entry.getValue();
+
+        put(key, value, 0, value.length, entry.getStoredAt(), entry.getExpiresAt());
+    }
+
+    private void put(String key, byte[] value, int offset, int length, long storedAt, long expiresAt)
+            throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordLength = 4 + keyBytes.length + length;
+
+        if (recordLength > capacity / 4) {
+            return;
+        }
+
+        long hash = hash(keyBytes);
+
+        synchronized (processLock) {
+            try (FileLock ignored = channel.lock()) {
+                long position = (long) LONGS.getVolatile(buffer, WRITE_POSITION_OFFSET);
+
+                // The position moves first, so that readers of the entries about to be overwritten notice
+                LONGS.setVolatile(buffer, WRITE_POSITION_OFFSET, position + recordLength);
+                VarHandle.fullFence();
+
+                ByteBuffer record = ByteBuffer.allocate(recordLength);
+                record.putInt(keyBytes.length).put(keyBytes).put(value, offset, length);
+                writeData(position, record.array());
+
+                writeSlot(chooseSlot(hash), hash, position, recordLength, expiresAt, storedAt);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key The key of the entry.
+     * @throws IOException If the file can't be locked.
+     */
+    @Override
+    public void remove(String key) throws IOException {
+        long hash = hash(key.getBytes(StandardCharsets.UTF_8));
+
+        synchronized (processLock) {
+            try (FileLock ignored = channel.lock()) {
+                for (int probe = 0; probe < MAX_PROBES && probe < slots; probe++) {
+                    int slot = slotOffset(hash, probe);
+
+                    if ((long) LONGS.getVolatile(buffer, slot + KEY_HASH) == hash) {
+                        writeSlot(slot, 0, 0, 0, 0, 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the file. The mapping itself is released once this cache has been garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Same key first, then a free, expired or overwritten slot, then the one expiring first
+    private int chooseSlot(long hash) {
+        int best = -1;
+        long bestExpiry = Long.MAX_VALUE;
+
+        for (int probe = 0; probe < MAX_PROBES && probe < slots; probe++) {
+            int slot = slotOffset(hash, probe);
+            long owner = buffer.getLong(slot + KEY_HASH);
+
+            if (owner == hash) {
+                return slot;
+            }
+
+            long expiresAt = buffer.getLong(slot + EXPIRES_AT);
+
+            if (owner == 0 || isOverwritten(buffer.getLong(slot + POSITION))) {
+                expiresAt = Long.MIN_VALUE;
+            }
+
+            if (best < 0 || expiresAt < bestExpiry) {
+                best = slot;
+                bestExpiry = expiresAt;
+            }
+        }
+
+        return best;
+    }
+
+    private long[] readSlot(int slot) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long sequence = (long) LONGS.getVolatile(buffer, slot + SEQUENCE);
+
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            long hash = buffer.getLong(slot + KEY_HASH);
+            long position = buffer.getLong(slot + POSITION);
+            long length = buffer.getInt(slot + LENGTH);
+            long expiresAt = buffer.getLong(slot + EXPIRES_AT);
+            long storedAt = buffer.getLong(slot + STORED_AT);
+
+            VarHandle.loadLoadFence();
+
+            if ((long) LONGS.getVolatile(buffer, slot + SEQUENCE) == sequence) {
+                return hash == 0 ? null : new long[]{sequence, hash, position, length, expiresAt, storedAt};
+            }
+        }
+
+        // A writer that died halfway through leaves the slot unreadable until it's written again
+        return null;
+    }
+
+    private void writeSlot(int slot, long hash, long position, int length, long expiresAt, long storedAt) {
+        // Rounded up to even, in case a writer died halfway through
+        long sequence = (buffer.getLong(slot + SEQUENCE) + 1) & ~1L;
+
+        LONGS.setVolatile(buffer, slot + SEQUENCE, sequence + 1);
+        VarHandle.storeStoreFence();
+
+        buffer.putLong(slot + KEY_HASH, hash);
+        buffer.putLong(slot + POSITION, position);
+        buffer.putInt(slot + LENGTH, length);
+        buffer.putLong(slot + EXPIRES_AT, expiresAt);
+        buffer.putLong(slot + STORED_AT, storedAt);
+
+        LONGS.setVolatile(buffer, slot + SEQUENCE, sequence + 2);
+    }
+
+    private byte[] readRecord(long position, int length) {
+        if (length < 4 || isOverwritten(position)) {
+            return null;
+        }
+
+        byte[] record = new byte[length];
+        ByteBuffer data = buffer.duplicate();
+        int start = (int) (position % capacity);
+        int first = (int) Math.min(length, capacity - start);
+
+        data.position(dataOffset + start);
+        data.get(record, 0, first);
+
+        if (first < length) {
+            data.position(dataOffset);
+            data.get(record, first, length - first);
+        }
+
+        // The copy only counts if no writer started overwriting it meanwhile
+        VarHandle.loadLoadFence();
+
+        return isOverwritten(position) ? null : record;
+    }
+
+    private void writeData(long position, byte[] record) {
+        ByteBuffer data = buffer.duplicate();
+        int start = (int) (position % capacity);
+        int first = (int) Math.min(record.length, capacity - start);
+
+        data.position(dataOffset + start);
+        data.put(record, 0, first);
+
+        if (first < record.length) {
+            data.position(dataOffset);
+            data.put(record, first, record.length - first);
+        }
+    }
+
+    private boolean isOverwritten(long position) {
+        return position < (long) LONGS.getVolatile(buffer, WRITE_POSITION_OFFSET) - capacity;
+    }
+
+    private int slotOffset(long hash, int probe) {
+        return HEADER_BYTES + (int) Long.remainderUnsigned(hash + probe, slots) * SLOT_BYTES;
+    }
+
+    // 64-bit FNV-1a, never 0 since 0 marks a free slot
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+
+}
@@ -0,0 +1,166 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.io.Closeable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A byte budget shared by caches and buffer pools, e.g. every cache tier and the buffer pool of a
+ * client, or of all the tenants of a {@link io.github.yagato.holodexwrapper.MultiTenantHolodexClient}.
+ *
+ * <br><br>
+ *
+ * {@link #enforce()} is called after memory is added to a participant. When the participants hold
+ * more than the budget together, each of them is trimmed in proportion to what it holds, so that
+ * the total falls back to the budget.
+ *
+ * <br><br>
+ *
+ * With {@link #watchHeap(double)}, the budget also listens to garbage collections: when the heap is
+ * still fuller than the given fraction after one, every participant is trimmed to half of what it
+ * holds, to give memory back before the JVM runs out of it.
+ */
+public class MemoryBudget implements Closeable {
+
+    private final long maxBytes;
+    private final Set<Reclaimable> participants = ConcurrentHashMap.newKeySet();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener gcListener = this::onGarbageCollection;
+    private volatile double heapFraction;
+    private final AtomicLong shrinkCount = new AtomicLong();
+
+    /**
+     * @param maxBytes Number of bytes the participants may hold together.
+     */
+    public MemoryBudget(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new RuntimeException("maxBytes can't be negative");
+        }
+
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Makes a participant share the budget. Registering it again has no effect.
+     *
+     * @param participant The participant.
+     */
+    public void register(Reclaimable participant) {
+        participants.add(participant);
+    }
+
+    /**
+     * @param participant A participant, which no longer counts against the budget.
+     */
+    public void unregister(Reclaimable participant) {
+        participants.remove(participant);
+    }
+
+    /**
+     * Trims the participants if they hold more than the budget together.
+     */
+    public void enforce() {
+        long retained = getRetainedBytes();
+
+        if (retained > maxBytes) {
+            trim((double) maxBytes / retained);
+        }
+    }
+
+    /**
+     * Starts trimming the participants after garbage collections that leave the heap fuller than the
+     * given fraction of its maximum size.
+     *
+     * @param heapFraction Fraction of the maximum heap size, e.g. 0.85.
+     */
+    public synchronized void watchHeap(double heapFraction) {
+        this.heapFraction = heapFraction;
+
+        if (!emitters.isEmpty()) {
+            return;
+        }
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(gcListener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    /**
+     * Stops listening to garbage collections.
+     */
+    @Override
+    public synchronized void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException ignored) {
+                // Already removed
+            }
+        }
+
+        emitters.clear();
+    }
+
+    /**
+     * @return Number of bytes the participants hold together.
+     */
+    public long getRetainedBytes() {
+        long retained = 0;
+
+        for (Reclaimable participant : participants) {
+            retained += participant.getRetainedBytes();
+        }
+
+        return retained;
+    }
+
+    /**
+     * @return Number of bytes the participants may hold together.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return Number of times the participants were trimmed because of heap pressure.
+     */
+    public long getShrinkCount() {
+        return shrinkCount.get();
+    }
+
+    private void onGarbageCollection(Notification notification, Object handback) {
+        // Only the JDK's garbage collection notifications are of interest, whatever the collector
+        if (!"com.sun.management.gc.notification".equals(notification.getType())) {
+            return;
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+
+        if (heap.getUsed() > max * heapFraction) {
+            shrinkCount.incrementAndGet();
+            trim(0.5);
+        }
+    }
+
+    private void trim(double ratio) {
+        for (Reclaimable participant : participants) {
+            participant.trimTo((long) (participant.getRetainedBytes() * ratio));
+        }
+    }
+
+}
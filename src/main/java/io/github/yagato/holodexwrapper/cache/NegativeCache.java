@@ -0,0 +1,137 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import java.util.Arrays;
+
+/**
+ * Remembers which resources Holodex answered as missing or invalid, so that looking them up again
+ * doesn't cost a request until the outcome expires.
+ *
+ * <br><br>
+ *
+ * Entries are kept in a fixed-size open-addressing table of 64-bit key fingerprints and packed
+ * (expiry, status) pairs, 16 bytes per entry whatever the length of the key. A fingerprint is
+ * compared in full, so a false hit needs two keys with the same 64-bit hash. When the probed slots
+ * are all taken, the entry expiring first is replaced.
+ */
+public class NegativeCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 65536;
+
+    private static final int MAX_PROBES = 8;
+    private static final int STATUS_BITS = 10;
+    private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+
+    private final long[] fingerprints;
+    private final long[] outcomes;
+
+    public NegativeCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries Number of entries to keep. The table is sized at least twice as large, to a power
+     *                   of two, so that entries are rarely replaced before it's full.
+     */
+    public NegativeCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new RuntimeException("maxEntries must be positive");
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(MAX_PROBES, maxEntries - 1) << 2);
+
+        this.fingerprints = new long[capacity];
+        this.outcomes = new long[capacity];
+    }
+
+    /**
+     * @param key The key of the resource.
+     * @return The HTTP status Holodex answered with, or 0 if the resource isn't known to be missing.
+     */
+    public synchronized int get(String key) {
+        long fingerprint = fingerprint(key);
+        long now = System.currentTimeMillis();
+        int mask = fingerprints.length - 1;
+
+        for (int probe = 0, slot = (int) fingerprint & mask; probe < MAX_PROBES; probe++, slot = (slot + 1) & mask) {
+            if (fingerprints[slot] == fingerprint) {
+                long outcome = outcomes[slot];
+
+                return outcome >>> STATUS_BITS > now ? (int) (outcome & STATUS_MASK) : 0;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Remembers that a resource is missing.
+     *
+     * @param key The key of the resource.
+     * @param status The HTTP status Holodex answered with.
+     * @param expiresAt When to forget it, in milliseconds since the epoch.
+     */
+    public synchronized void put(String key, int status, long expiresAt) {
+        long fingerprint = fingerprint(key);
+        int mask = fingerprints.length - 1;
+        int victim = -1;
+        long victimExpiresAt = Long.MAX_VALUE;
+
+        for (int probe = 0, slot = (int) fingerprint & mask; probe < MAX_PROBES; probe++, slot = (slot + 1) & mask) {
+            if (fingerprints[slot] == fingerprint) {
+                victim = slot;
+                break;
+            }
+
+            long slotExpiresAt = fingerprints[slot] == 0 ? Long.MIN_VALUE : outcomes[slot] >>> STATUS_BITS;
+
+            if (slotExpiresAt < victimExpiresAt) {
+                victim = slot;
+                victimExpiresAt = slotExpiresAt;
+            }
+        }
+
+        fingerprints[victim] = fingerprint;
+        outcomes[victim] = expiresAt << STATUS_BITS | status & STATUS_MASK;
+    }
+
+    /**
+     * Forgets that a resource is missing.
+     *
+     * @param key The key of the resource.
+     */
+    public synchronized void remove(String key) {
+        long fingerprint = fingerprint(key);
+        int mask = fingerprints.length - 1;
+
+        // Slots are never emptied, only expired, so that later entries of the probe sequence stay reachable
+        for (int probe = 0, slot = (int) fingerprint & mask; probe < MAX_PROBES; probe++, slot = (slot + 1) & mask) {
+            if (fingerprints[slot] == fingerprint) {
+                outcomes[slot] = 0;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets every resource.
+     */
+    public synchronized void clear() {
+        Arrays.fill(fingerprints, 0);
+        Arrays.fill(outcomes, 0);
+    }
+
+    // 64-bit FNV-1a; 0 marks an empty slot
+    static long fingerprint(String key) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 29;
+
+        return hash == 0 ? 1 : hash;
+    }
+
+}
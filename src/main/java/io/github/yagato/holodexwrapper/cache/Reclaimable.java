@@ -0,0 +1,26 @@
+package io.github.yagato.holodexwrapper.cache;
+
+/**
+ * Something holding memory that it can give back on demand, e.g. a cache or a buffer pool, so that
+ * several of them can share a {@link MemoryBudget}.
+ *
+ * <br><br>
+ *
+ * Implementations must be thread-safe.
+ */
+public interface Reclaimable {
+
+    /**
+     * @return Estimated number of bytes currently held.
+     */
+    long getRetainedBytes();
+
+    /**
+     * Releases memory, e.g. by evicting the least recently used entries, until at most the given
+     * number of bytes is held.
+     *
+     * @param bytes The number of bytes to keep.
+     */
+    void trimTo(long bytes);
+
+}
@@ -0,0 +1,19 @@
+package io.github.yagato.holodexwrapper.cache;
+
+/**
+ * A value kept in the on-heap tier in its serialized form, e.g. after being restored from a snapshot,
+ * and decoded by the first lookup that knows its type.
+ */
+final class SerializedValue {
+
+    private final byte[] bytes;
+
+    SerializedValue(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+}
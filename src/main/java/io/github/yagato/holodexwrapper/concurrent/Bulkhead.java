@@ -0,0 +1,105 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+import io.github.yagato.holodexwrapper.http.Deadline;
+import io.github.yagato.holodexwrapper.http.DeadlineExceededException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many requests of one kind are in flight, and how many may wait for their turn, so that a
+ * slow kind of request can't take every connection and thread from the others. Requests arriving
+ * while the queue is full are rejected right away.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * @param maxConcurrent Number of requests that may be in flight at once.
+     * @param maxQueued Number of requests that may wait for one of them to finish.
+     */
+    public Bulkhead(int maxConcurrent, int maxQueued) {
+        if (maxConcurrent < 1 || maxQueued < 0) {
+            throw new RuntimeException("maxConcurrent must be at least 1 and maxQueued at least 0");
+        }
+
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Takes a permit, waiting in the queue if every permit is in use.
+     *
+     * @param deadline The deadline of the call, or null to wait as long as needed.
+     * @throws RequestRejectedException If the queue is full.
+     * @throws DeadlineExceededException If no permit becomes available before the deadline.
+     * @throws UnirestException If the thread is interrupted while waiting.
+     */
+    public void acquire(Deadline deadline) throws UnirestException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw new RequestRejectedException("Bulkhead full: " + maxConcurrent + " requests in flight and "
+                    + maxQueued + " queued");
+        }
+
+        try {
+            if (deadline == null) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+                throw new DeadlineExceededException("Deadline exceeded while waiting in a bulkhead");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnirestException(e);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gives a permit back.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return Number of requests that may be in flight at once.
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return Number of requests that may wait for a permit.
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * @return Number of requests in flight.
+     */
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return Number of requests waiting for a permit.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+}
@@ -0,0 +1,179 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+import io.github.yagato.holodexwrapper.http.Deadline;
+import io.github.yagato.holodexwrapper.http.DeadlineExceededException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares a fixed number of permits, e.g. connections, between several parties by weight. A party
+ * may use every permit the others leave idle, but whenever permits are contended, each freed permit
+ * goes to the waiting party with the fewest permits in use relative to its weight. A party that
+ * floods the limiter therefore only delays itself.
+ */
+public class FairShareLimiter {
+
+    private final int permits;
+    private final List<Share> shares = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int totalInUse;
+    private int totalWaiting;
+
+    /**
+     * @param permits Number of permits shared.
+     */
+    public FairShareLimiter(int permits) {
+        if (permits < 1) {
+            throw new RuntimeException("permits must be at least 1");
+        }
+
+        this.permits = permits;
+    }
+
+    /**
+     * @param weight Share of the permits the party gets under contention, relative to the others.
+     * @return The party's share.
+     */
+    public Share register(int weight) {
+        if (weight < 1) {
+            throw new RuntimeException("weight must be at least 1");
+        }
+
+        Share share = new Share(weight);
+        shares.add(share);
+
+        return share;
+    }
+
+    /**
+     * @return Number of permits shared.
+     */
+    public int getPermits() {
+        return permits;
+    }
+
+    // The waiting share with the lowest usage relative to its weight, called with the lock held
+    private Share nextInLine() {
+        Share next = null;
+
+        for (Share share : shares) {
+            if (share.waiting > 0 && (next == null || share.inUse * next.weight < next.inUse * share.weight)) {
+                next = share;
+            }
+        }
+
+        return next;
+    }
+
+    /**
+     * One party's access to the permits.
+     */
+    public final class Share {
+
+        private final int weight;
+        private int inUse;
+        private int waiting;
+
+        private Share(int weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Takes a permit, waiting for this party's turn if every permit is in use.
+         *
+         * @param deadline The deadline of the call, or null to wait as long as needed.
+         * @throws DeadlineExceededException If no permit is granted before the deadline.
+         * @throws UnirestException If the thread is interrupted while waiting.
+         */
+        public void acquire(Deadline deadline) throws UnirestException {
+            lock.lock();
+
+            try {
+                if (totalInUse < permits && totalWaiting == 0) {
+                    take();
+                    return;
+                }
+
+                waiting++;
+                totalWaiting++;
+
+                try {
+                    while (totalInUse >= permits || nextInLine() != this) {
+                        if (deadline == null) {
+                            released.await();
+                        } else if (deadline.isExpired()) {
+                            throw new DeadlineExceededException("Deadline exceeded while waiting for a fair share");
+                        } else {
+                            released.awaitNanos(deadline.remainingNanos());
+                        }
+                    }
+                } finally {
+                    waiting--;
+                    totalWaiting--;
+                    released.signalAll();
+                }
+
+                take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnirestException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Gives a permit back.
+         */
+        public void release() {
+            lock.lock();
+
+            try {
+                inUse--;
+                totalInUse--;
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Stops sharing; permits still in use are returned when released.
+         */
+        public void unregister() {
+            shares.remove(this);
+        }
+
+        /**
+         * @return Number of permits this party is using.
+         */
+        public int getInUse() {
+            lock.lock();
+
+            try {
+                return inUse;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return Weight of this party.
+         */
+        public int getWeight() {
+            return weight;
+        }
+
+        private void take() {
+            inUse++;
+            totalInUse++;
+        }
+
+    }
+
+}
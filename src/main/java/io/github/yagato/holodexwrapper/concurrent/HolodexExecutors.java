@@ -0,0 +1,88 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the executor that runs blocking HolodexClient calls.
+ *
+ * <br><br>
+ *
+ * This is the Java 11 version, which returns a bounded pool of platform threads. On Java 21+, the
+ * multi-release JAR provides a version that runs every task on its own virtual thread instead.
+ *
+ * <br><br>
+ *
+ * The pool queues at most {@link #MAX_QUEUED_TASKS} tasks; HolodexClient fails the calls submitted
+ * beyond that with a {@link RequestRejectedException}, so that overload shows instead of piling up.
+ *
+ * <br><br>
+ *
+ * A task that submits more tasks to the same pool and blocks on them could wait forever once every
+ * thread is taken by such a task, e.g. a {@code getChannelsInformation} call passed to
+ * {@code submit}. HolodexClient avoids this by having a waiting task run the tasks it waits for
+ * itself when no thread has picked them up yet. That only covers waits inside the client: code
+ * running on the pool that blocks on anything else, e.g. {@code Future.get()} on a call it
+ * submitted itself, must not, or must use another executor.
+ */
+public final class HolodexExecutors {
+
+    /**
+     * Maximum number of platform threads used on Java versions without virtual threads.
+     */
+    public static final int MAX_PLATFORM_THREADS = 64;
+
+    /**
+     * Maximum number of tasks waiting for a platform thread.
+     */
+    public static final int MAX_QUEUED_TASKS = 4096;
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private HolodexExecutors() {
+    }
+
+    /**
+     * @return A new executor for blocking requests: one virtual thread per task on Java 21+, a
+     * bounded pool of daemon platform threads otherwise.
+     */
+    public static ExecutorService newRequestExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_PLATFORM_THREADS,
+                MAX_PLATFORM_THREADS,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_TASKS),
+                new DaemonThreadFactory()
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     * @return Whether {@link #newRequestExecutor()} runs tasks on virtual threads.
+     */
+    public static boolean usesVirtualThreads() {
+        return false;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "holodex-request-" + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,19 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import io.github.yagato.holodexwrapper.json.JsonArrayIterator;
+
+/**
+ * Opens one page of a paginated endpoint as a streaming iterator.
+ */
+@FunctionalInterface
+public interface PageSource<T> {
+
+    /**
+     * @param offset Index of the first element of the page.
+     * @param limit Maximum number of elements of the page.
+     * @return An iterator over the elements of the page.
+     * @throws Exception If the page can't be requested.
+     */
+    JsonArrayIterator<T> open(int offset, int limit) throws Exception;
+
+}
@@ -0,0 +1,246 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import io.github.yagato.holodexwrapper.http.RequestContext;
+import io.github.yagato.holodexwrapper.json.JsonArrayIterator;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher that pages through an endpoint on demand.
+ *
+ * <br><br>
+ *
+ * Every subscriber gets its own pass over the pages, starting at the first offset. Pages are only
+ * requested while the subscriber has outstanding demand, and each element is emitted as soon as it's
+ * parsed from the response. The pass completes after the first incomplete page. Each subscription
+ * opens its pages in a child of the publisher's {@link RequestContext}; cancelling it cancels that
+ * context and interrupts the page being opened, so that a request waiting for a permit or for its
+ * response is aborted like a response being read.
+ *
+ * <br><br>
+ *
+ * Signals to a subscriber are delivered from tasks run on the given executor; since requests are
+ * blocking, an executor with cheap threads (see {@link HolodexExecutors}) works best. A subscriber
+ * must not block in its callbacks on work that needs the same executor. If the executor rejects a
+ * task, the subscription fails with a {@link RequestRejectedException}.
+ */
+public class PagedPublisher<T> implements Flow.Publisher<T> {
+
+    private final PageSource<T> source;
+    private final int firstOffset;
+    private final int pageSize;
+    private final Executor executor;
+    private final RequestContext context;
+
+    /**
+     * Creates a publisher whose pages are opened in a context forked from the current call, if any.
+     *
+     * @param source Opens each page.
+     * @param firstOffset Offset of the first page.
+     * @param pageSize Number of elements requested per page.
+     * @param executor Executor the pages are requested and emitted on.
+     */
+    public PagedPublisher(PageSource<T> source, int firstOffset, int pageSize, Executor executor) {
+        this(source, firstOffset, pageSize, executor, RequestContext.fork());
+    }
+
+    /**
+     * @param source Opens each page.
+     * @param firstOffset Offset of the first page.
+     * @param pageSize Number of elements requested per page.
+     * @param executor Executor the pages are requested and emitted on.
+     * @param context Context the pages are opened in, usually from {@link RequestContext#fork()}.
+     */
+    public PagedPublisher(PageSource<T> source, int firstOffset, int pageSize, Executor executor,
+                          RequestContext context) {
+        if (pageSize < 1) {
+            throw new RuntimeException("pageSize must be at least 1");
+        }
+
+        this.source = source;
+        this.firstOffset = firstOffset;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.context = context;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber can't be null");
+        }
+
+        PageSubscription subscription = new PageSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class PageSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final RequestContext subscriptionContext = context.child();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable pendingError;
+        private volatile JsonArrayIterator<T> page;
+
+        // The thread opening a page, guarded by this subscription
+        private Thread opening;
+
+        // Only touched by the drain loop, which never runs concurrently with itself
+        private boolean done;
+        private int offset = firstOffset;
+        private int receivedInPage;
+
+        PageSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                pendingError = new IllegalArgumentException("Non-positive request: " + n);
+                abortPage();
+                drain();
+                return;
+            }
+
+            demand.accumulateAndGet(n, (current, added) -> {
+                long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptionContext.cancel();
+
+            synchronized (this) {
+                if (opening != null) {
+                    opening.interrupt();
+                }
+            }
+
+            abortPage();
+            drain();
+        }
+
+        private void abortPage() {
+            JsonArrayIterator<T> current = page;
+
+            if (current != null) {
+                current.abort();
+            }
+        }
+
+        private void drain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drainLoop);
+                } catch (RejectedExecutionException e) {
+                    // No drain loop is running, so this thread fails the subscription without requesting a page
+                    pendingError = new RequestRejectedException("The executor is saturated: " + e.getMessage());
+                    drainLoop();
+                }
+            }
+        }
+
+        private void drainLoop() {
+            int missed = 1;
+
+            do {
+                Throwable error = pendingError;
+
+                if (error != null && !done && !cancelled) {
+                    done = true;
+                    closePage();
+                    subscriber.onError(error);
+                } else {
+                    emitWhileDemanded();
+                }
+
+                if (cancelled || done) {
+                    closePage();
+                }
+
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emitWhileDemanded() {
+            try {
+                while (!cancelled && !done && pendingError == null && demand.get() > 0) {
+                    if (page == null) {
+                        page = open();
+                        receivedInPage = 0;
+
+                        // A cancellation may have missed the page while it was being opened
+                        if (cancelled) {
+                            return;
+                        }
+                    }
+
+                    if (page.hasNextValue()) {
+                        T element = page.nextValue();
+                        receivedInPage++;
+                        demand.decrementAndGet();
+                        subscriber.onNext(element);
+                        continue;
+                    }
+
+                    closePage();
+                    offset += receivedInPage;
+
+                    if (receivedInPage < pageSize) {
+                        done = true;
+                        subscriber.onComplete();
+                    }
+                }
+            } catch (Throwable e) {
+                closePage();
+
+                if (!cancelled && !done) {
+                    Throwable error = pendingError;
+                    done = true;
+                    subscriber.onError(error != null ? error : e);
+                }
+            }
+        }
+
+        private JsonArrayIterator<T> open() throws Exception {
+            synchronized (this) {
+                opening = Thread.currentThread();
+            }
+
+            try (RequestContext.Scope scope = subscriptionContext.enter()) {
+                return source.open(offset, pageSize);
+            } finally {
+                synchronized (this) {
+                    opening = null;
+
+                    // The interrupt was only meant for the page, not for the executor's next task
+                    if (cancelled) {
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        private void closePage() {
+            JsonArrayIterator<T> current = page;
+
+            if (current != null) {
+                page = null;
+                current.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+/**
+ * Thrown when a request isn't sent because too many are already waiting for the same resources.
+ */
+public class RequestRejectedException extends UnirestException {
+
+    public RequestRejectedException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,234 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+import io.github.yagato.holodexwrapper.http.Deadline;
+import io.github.yagato.holodexwrapper.http.DeadlineExceededException;
+import io.github.yagato.holodexwrapper.http.Priority;
+import io.github.yagato.holodexwrapper.http.RateLimiter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out the permits of a {@link RateLimiter} to waiting requests by priority instead of arrival
+ * order, using weighted fair queueing: while several classes are waiting, each gets a share of the
+ * permits proportional to its {@link Priority#getWeight() weight}, and a class that has been idle
+ * doesn't get to catch up on the permits it didn't use.
+ *
+ * <br><br>
+ *
+ * At most {@code maxQueued} requests wait at once. When the queue is full, the most recent request of
+ * the lowest priority below the newcomer's is shed to make room, and if there is none the newcomer is
+ * rejected; both fail with a {@link RequestRejectedException}.
+ */
+public class RequestScheduler {
+
+    private final RateLimiter rateLimiter;
+    private final int maxQueued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<ArrayDeque<Ticket>> queues;
+    private final double[] lastFinish;
+    private double virtualTime;
+    private int queued;
+
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param rateLimiter The budget to share, e.g. {@link RateLimiter#holodexDefault()}.
+     * @param maxQueued Number of requests that may wait for a permit at once.
+     */
+    public RequestScheduler(RateLimiter rateLimiter, int maxQueued) {
+        if (maxQueued < 1) {
+            throw new RuntimeException("maxQueued must be at least 1");
+        }
+
+        this.rateLimiter = rateLimiter;
+        this.maxQueued = maxQueued;
+        this.queues = new ArrayList<>(Priority.values().length);
+        this.lastFinish = new double[Priority.values().length];
+
+        for (int i = 0; i < lastFinish.length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Waits for the scheduler to grant the request a permit.
+     *
+     * @param priority The priority of the request.
+     * @param deadline The deadline of the call, or null to wait as long as needed.
+     * @throws RequestRejectedException If the request was rejected or shed because the queue was full.
+     * @throws DeadlineExceededException If no permit is granted before the deadline.
+     * @throws UnirestException If the thread is interrupted while waiting.
+     */
+    public void acquire(Priority priority, Deadline deadline) throws UnirestException {
+        lock.lock();
+
+        try {
+            if (queued == 0 && rateLimiter.tryAcquire()) {
+                return;
+            }
+
+            Ticket ticket = enqueue(priority);
+
+            try {
+                awaitTurn(ticket, deadline);
+            } finally {
+                if (!ticket.dequeued) {
+                    remove(ticket);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The budget shared by this scheduler.
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @return Number of requests waiting for a permit.
+     */
+    public int getQueued() {
+        lock.lock();
+
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of queued requests shed so far to make room for more urgent ones.
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * @return Number of requests rejected so far because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void awaitTurn(Ticket ticket, Deadline deadline) throws UnirestException {
+        try {
+            while (true) {
+                if (ticket.shed) {
+                    throw new RequestRejectedException("Request shed in favour of more urgent ones");
+                }
+
+                long waitNanos = Long.MAX_VALUE;
+
+                if (head() == ticket) {
+                    if (rateLimiter.tryAcquire()) {
+                        virtualTime = ticket.finish;
+                        remove(ticket);
+                        return;
+                    }
+
+                    waitNanos = rateLimiter.nanosUntilAvailable();
+                }
+
+                if (deadline != null) {
+                    if (deadline.isExpired()) {
+                        throw new DeadlineExceededException("Deadline exceeded while waiting for the scheduler");
+                    }
+
+                    waitNanos = Math.min(waitNanos, deadline.remainingNanos());
+                }
+
+                if (waitNanos == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnirestException(e);
+        }
+    }
+
+    private Ticket enqueue(Priority priority) throws RequestRejectedException {
+        if (queued >= maxQueued && !shedBelow(priority)) {
+            rejected.increment();
+            throw new RequestRejectedException("Request rejected: " + maxQueued + " requests already queued");
+        }
+
+        int index = priority.ordinal();
+        Ticket ticket = new Ticket(priority, Math.max(virtualTime, lastFinish[index]) + 1.0 / priority.getWeight());
+        lastFinish[index] = ticket.finish;
+        queues.get(index).addLast(ticket);
+        queued++;
+        changed.signalAll();
+
+        return ticket;
+    }
+
+    // Sheds the most recent request of the lowest priority below the given one
+    private boolean shedBelow(Priority priority) {
+        for (int i = queues.size() - 1; i > priority.ordinal(); i--) {
+            Ticket victim = queues.get(i).peekLast();
+
+            if (victim != null) {
+                victim.shed = true;
+                remove(victim);
+                shed.increment();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Ticket head() {
+        Ticket head = null;
+
+        for (ArrayDeque<Ticket> queue : queues) {
+            Ticket first = queue.peekFirst();
+
+            if (first != null && (head == null || first.finish < head.finish)) {
+                head = first;
+            }
+        }
+
+        return head;
+    }
+
+    private void remove(Ticket ticket) {
+        queues.get(ticket.priority.ordinal()).remove(ticket);
+        ticket.dequeued = true;
+        queued--;
+        changed.signalAll();
+    }
+
+    private static final class Ticket {
+
+        private final Priority priority;
+        private final double finish;
+        private boolean dequeued;
+        private boolean shed;
+
+        private Ticket(Priority priority, double finish) {
+            this.priority = priority;
+            this.finish = finish;
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import io.github.yagato.holodexwrapper.http.RequestContext;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A task running a call in a given {@link RequestContext}. Cancelling it cancels the context, which
+ * aborts the requests it has in flight instead of leaving them blocked on the network.
+ *
+ * <br><br>
+ *
+ * A task may be run by whichever thread gets to it first, e.g. by a task waiting for it on a bounded
+ * pool, see {@link #isRunningTask()}; the other threads then skip it.
+ */
+public class RequestTask<T> extends FutureTask<T> {
+
+    private static final ThreadLocal<Boolean> RUNNING = new ThreadLocal<>();
+
+    private final RequestContext context;
+
+    /**
+     * @param call The call to run.
+     * @param context The context to run it in, usually from {@link RequestContext#fork()}.
+     */
+    public RequestTask(Callable<T> call, RequestContext context) {
+        super(() -> {
+            try (RequestContext.Scope scope = context.enter()) {
+                return call.call();
+            }
+        });
+
+        this.context = context;
+    }
+
+    @Override
+    public void run() {
+        if (RUNNING.get() != null) {
+            super.run();
+            return;
+        }
+
+        RUNNING.set(Boolean.TRUE);
+
+        try {
+            super.run();
+        } finally {
+            RUNNING.remove();
+        }
+    }
+
+    /**
+     * @return Whether the current thread is running a RequestTask. Such a thread shouldn't block on
+     * tasks that are still queued: on a bounded pool whose threads are all waiting, they'd never run.
+     */
+    public static boolean isRunningTask() {
+        return RUNNING.get() != null;
+    }
+
+    /**
+     * Fails the task without running it, e.g. when its executor rejects it.
+     *
+     * @param message The message of the {@link RequestRejectedException} the task fails with.
+     */
+    public void reject(String message) {
+        setException(new RequestRejectedException(message));
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        context.cancel();
+
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+}
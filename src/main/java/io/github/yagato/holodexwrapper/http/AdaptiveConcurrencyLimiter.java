@@ -0,0 +1,241 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many requests are in flight at once, adapting the limit to how Holodex is coping
+ * (additive increase, multiplicative decrease).
+ *
+ * <br><br>
+ *
+ * Every successful response whose latency stays close to the usual latency raises the limit by
+ * {@code 1 / limit}, i.e. by about one per round of requests. A 429, a 5xx, a timeout or a latency
+ * spike multiplies it by the backoff ratio instead, at most once per round: responses to requests
+ * sent before the last decrease don't decrease it again.
+ *
+ * <br><br>
+ *
+ * A request holds its permit until its response has been closed, so slow bodies count as in flight.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 10;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 20;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.7;
+    public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+    // Number of samples before latency spikes are detected, and weights of new samples in the baseline
+    private static final int WARMUP_SAMPLES = 10;
+    private static final double BASELINE_WEIGHT = 0.1;
+    private static final double SPIKE_BASELINE_WEIGHT = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+    private long samples;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    /**
+     * Creates a limiter with the default limits, starting at 10 requests and staying within the 20
+     * connections the default transport keeps to Holodex.
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_BACKOFF_RATIO, DEFAULT_LATENCY_TOLERANCE);
+    }
+
+    /**
+     * @param initialLimit The limit to start with.
+     * @param minLimit The lowest the limit can go.
+     * @param maxLimit The highest the limit can go.
+     * @param backoffRatio What the limit is multiplied by when Holodex is overloaded, between 0 and 1.
+     * @param latencyTolerance How many times the usual latency a response may take before it's
+     *                         considered a sign of overload.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Takes a permit, waiting until fewer requests than the limit are in flight.
+     *
+     * @param deadline The deadline of the call, or null to wait as long as needed.
+     * @return The permit, to be released once the response has been closed.
+     * @throws DeadlineExceededException If no permit becomes available before the deadline.
+     * @throws UnirestException If the thread is interrupted while waiting.
+     */
+    public Permit acquire(Deadline deadline) throws UnirestException {
+        lock.lock();
+
+        try {
+            while (inFlight >= (int) limit) {
+                if (deadline == null) {
+                    permitReleased.await();
+                } else if (deadline.isExpired()) {
+                    throw new DeadlineExceededException("Deadline exceeded while waiting for a concurrency permit");
+                } else {
+                    permitReleased.awaitNanos(deadline.remainingNanos());
+                }
+            }
+
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnirestException(e);
+        } finally {
+            lock.unlock();
+        }
+
+        return new Permit(System.nanoTime());
+    }
+
+    /**
+     * @return The current limit.
+     */
+    public int getLimit() {
+        lock.lock();
+
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of requests in flight.
+     */
+    public int getInFlight() {
+        lock.lock();
+
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess(long startNanos, long latencyNanos) {
+        lock.lock();
+
+        try {
+            boolean spike = samples >= WARMUP_SAMPLES && latencyNanos > baselineNanos * latencyTolerance;
+
+            // Spikes still nudge the baseline, so that a lasting slowdown eventually becomes the norm
+            double weight = samples == 0 ? 1 : spike ? SPIKE_BASELINE_WEIGHT : BASELINE_WEIGHT;
+            baselineNanos += (latencyNanos - baselineNanos) * weight;
+            samples++;
+
+            if (spike) {
+                decrease(startNanos);
+            } else if (limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+                permitReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onOverload(long startNanos) {
+        lock.lock();
+
+        try {
+            decrease(startNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(long startNanos) {
+        if (startNanos - lastDecreaseNanos < 0) {
+            return;
+        }
+
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lastDecreaseNanos = System.nanoTime();
+    }
+
+    private void release() {
+        lock.lock();
+
+        try {
+            inFlight--;
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Permission to have one request in flight.
+     */
+    public final class Permit {
+
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Records the outcome of the request from its status code and the time it took to receive it.
+         *
+         * @param status The HTTP status code.
+         */
+        public void onResponse(int status) {
+            if (status == 429 || status >= 500) {
+                onOverload(startNanos);
+            } else if (status >= 200 && status < 300) {
+                onSuccess(startNanos, System.nanoTime() - startNanos);
+            }
+        }
+
+        /**
+         * Records that the request timed out or the connection failed.
+         */
+        public void onFailure() {
+            onOverload(startNanos);
+        }
+
+        /**
+         * Gives the permit back; only the first call has an effect.
+         */
+        public void release() {
+            if (released) {
+                return;
+            }
+
+            released = true;
+            AdaptiveConcurrencyLimiter.this.release();
+        }
+
+    }
+
+}
@@ -0,0 +1,271 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Several Holodex API keys used as one: each key has its own rate bucket and health, and every
+ * request goes to the healthy key with a free permit that has the fewest requests in flight, so the
+ * throughput grows with the number of keys.
+ *
+ * <br><br>
+ *
+ * A key answered with 401 or 429 is taken out of rotation for a while: until the Retry-After of the
+ * response if there is one, otherwise for {@link #DEFAULT_UNAUTHORIZED_EJECTION} after a 401 and
+ * {@link #DEFAULT_RATE_LIMITED_EJECTION} after a 429.
+ */
+public class ApiKeyPool {
+
+    public static final Duration DEFAULT_UNAUTHORIZED_EJECTION = Duration.ofMinutes(10);
+    public static final Duration DEFAULT_RATE_LIMITED_EJECTION = Duration.ofMinutes(1);
+
+    private final List<KeyState> keys;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition keyReleased = lock.newCondition();
+
+    /**
+     * Creates a pool whose keys are each limited to Holodex's 80 requests per 2 minutes.
+     *
+     * @param keys The API keys.
+     */
+    public ApiKeyPool(Collection<String> keys) {
+        this(keys, RateLimiter::holodexDefault);
+    }
+
+    /**
+     * Creates a pool whose keys are each limited to Holodex's 80 requests per 2 minutes, with their
+     * buckets kept in the given store, so that every process using it shares them.
+     *
+     * @param keys The API keys.
+     * @param store Where the bucket states are kept.
+     */
+    public ApiKeyPool(Collection<String> keys, RateLimitStore store) {
+        this(keys, key -> RateLimiter.holodexDefault(store, RateLimiter.bucketFor(key)));
+    }
+
+    /**
+     * @param keys The API keys.
+     * @param buckets Creates the rate bucket of each key.
+     */
+    public ApiKeyPool(Collection<String> keys, Supplier<RateLimiter> buckets) {
+        this(keys, key -> buckets.get());
+    }
+
+    /**
+     * @param keys The API keys.
+     * @param buckets Creates the rate bucket of the given key.
+     */
+    public ApiKeyPool(Collection<String> keys, Function<String, RateLimiter> buckets) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is needed");
+        }
+
+        List<KeyState> states = new ArrayList<>(keys.size());
+
+        for (String key : keys) {
+            states.add(new KeyState(key, buckets.apply(key)));
+        }
+
+        this.keys = Collections.unmodifiableList(states);
+    }
+
+    /**
+     * Picks a key for one request, waiting until a healthy key has a free permit.
+     *
+     * @param deadline The deadline of the call, or null to wait as long as needed.
+     * @return The lease of the key, to be released once the response has been closed.
+     * @throws DeadlineExceededException If no key becomes available before the deadline.
+     * @throws UnirestException If the thread is interrupted while waiting.
+     */
+    public Lease acquire(Deadline deadline) throws UnirestException {
+        lock.lock();
+
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                KeyState best = null;
+                long waitNanos = Long.MAX_VALUE;
+
+                for (KeyState key : keys) {
+                    long ejectedFor = key.ejectedUntil - now;
+
+                    if (ejectedFor > 0) {
+                        waitNanos = Math.min(waitNanos, ejectedFor);
+                        continue;
+                    }
+
+                    long untilPermit = key.bucket.nanosUntilAvailable();
+
+                    if (untilPermit > 0) {
+                        waitNanos = Math.min(waitNanos, untilPermit);
+                    } else if (best == null || key.inFlight < best.inFlight) {
+                        best = key;
+                    }
+                }
+
+                if (best != null && best.bucket.tryAcquire()) {
+                    best.inFlight++;
+                    return new Lease(best);
+                }
+
+                if (deadline != null) {
+                    if (deadline.isExpired()) {
+                        throw new DeadlineExceededException("Deadline exceeded while waiting for an API key");
+                    }
+
+                    waitNanos = Math.min(waitNanos, deadline.remainingNanos());
+                }
+
+                keyReleased.awaitNanos(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnirestException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of keys in the pool.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @return Number of keys currently in rotation.
+     */
+    public int getHealthyCount() {
+        lock.lock();
+
+        try {
+            long now = System.nanoTime();
+            int healthy = 0;
+
+            for (KeyState key : keys) {
+                if (key.ejectedUntil - now <= 0) {
+                    healthy++;
+                }
+            }
+
+            return healthy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a key out of rotation, e.g. after it has been revoked.
+     *
+     * @param key The API key.
+     * @param duration How long to keep it out.
+     */
+    public void eject(String key, Duration duration) {
+        for (KeyState state : keys) {
+            if (state.key.equals(key)) {
+                eject(state, duration);
+            }
+        }
+    }
+
+    private void eject(KeyState key, Duration duration) {
+        lock.lock();
+
+        try {
+            key.ejectedUntil = System.nanoTime() + duration.toNanos();
+            key.bucket.drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class KeyState {
+
+        private final String key;
+        private final RateLimiter bucket;
+        private int inFlight;
+        private long ejectedUntil = System.nanoTime();
+
+        private KeyState(String key, RateLimiter bucket) {
+            this.key = key;
+            this.bucket = bucket;
+        }
+
+    }
+
+    /**
+     * One request's use of a key.
+     */
+    public final class Lease {
+
+        private final KeyState state;
+        private boolean released;
+
+        private Lease(KeyState state) {
+            this.state = state;
+        }
+
+        /**
+         * @return The API key to send the request with.
+         */
+        public String getKey() {
+            return state.key;
+        }
+
+        /**
+         * Takes the key out of rotation if the response shows it's unauthorized or rate limited.
+         *
+         * @param status The HTTP status code.
+         * @param retryAfter The Retry-After header of the response, or null.
+         */
+        public void onResponse(int status, String retryAfter) {
+            if (status == 401) {
+                eject(state, ejection(retryAfter, DEFAULT_UNAUTHORIZED_EJECTION));
+            } else if (status == 429) {
+                eject(state, ejection(retryAfter, DEFAULT_RATE_LIMITED_EJECTION));
+            }
+        }
+
+        /**
+         * Gives the key back; only the first call has an effect.
+         */
+        public void release() {
+            lock.lock();
+
+            try {
+                if (!released) {
+                    released = true;
+                    state.inFlight--;
+                    keyReleased.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+    private static Duration ejection(String retryAfter, Duration fallback) {
+        if (retryAfter != null) {
+            try {
+                return Duration.ofSeconds(Math.max(1, Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException ignored) {
+                // HTTP dates aren't worth parsing for this, the fallback is used instead
+            }
+        }
+
+        return fallback;
+    }
+
+}
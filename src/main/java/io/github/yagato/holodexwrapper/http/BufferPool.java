@@ -0,0 +1,217 @@
+package io.github.yagato.holodexwrapper.http;
+
+import io.github.yagato.holodexwrapper.cache.MemoryBudget;
+import io.github.yagato.holodexwrapper.cache.Reclaimable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe, bounded pool of byte arrays used for reading and decompressing response bodies.
+ *
+ * <br><br>
+ *
+ * Buffers come in power-of-two size classes, from 4 KiB up to the maximum buffer size. Larger
+ * requests are served by plain allocations that are never pooled. The total size of the idle
+ * buffers kept by the pool never exceeds the retention limit; buffers released beyond it are left
+ * to the garbage collector. A {@link MemoryBudget} is enforced each time the idle buffers grow past
+ * another eighth of the retention limit, rather than on every release.
+ *
+ * <br><br>
+ *
+ * Jackson keeps recycling its own parsing buffers per thread (see
+ * {@link com.fasterxml.jackson.core.util.BufferRecycler}); when a body is parsed from a pooled
+ * buffer, the parser reads that array in place instead of copying it into one of its own.
+ */
+public class BufferPool implements Reclaimable {
+
+    /**
+     * Default size of the largest pooled buffer.
+     */
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Default limit on the total size of the idle buffers kept by the pool.
+     */
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 32L * 1024 * 1024;
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_BUFFERS_PER_CLASS = 64;
+
+    private final List<BlockingQueue<byte[]>> classes;
+    private final long maxRetainedBytes;
+    private final long enforceStep;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private volatile MemoryBudget memoryBudget;
+
+    public BufferPool() {
+        this(DEFAULT_MAX_BUFFER_SIZE, DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+    /**
+     * @param maxBufferSize Size of the largest pooled buffer, rounded up to a power of two.
+     * @param maxRetainedBytes Limit on the total size of the idle buffers kept by the pool.
+     */
+    public BufferPool(int maxBufferSize, long maxRetainedBytes) {
+        int maxShift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, maxBufferSize - 1)));
+
+        int classCount = maxShift - MIN_SHIFT + 1;
+
+        this.classes = new ArrayList<>(classCount);
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.enforceStep = Math.max(1L << MIN_SHIFT, maxRetainedBytes / 8);
+
+        for (int i = 0; i < classCount; i++) {
+            long classSize = 1L << (i + MIN_SHIFT);
+            int capacity = (int) Math.max(1, Math.min(MAX_BUFFERS_PER_CLASS, maxRetainedBytes / classSize));
+            classes.add(new ArrayBlockingQueue<>(capacity));
+        }
+    }
+
+    /**
+     * Takes a buffer from the pool, or allocates one if none is idle.
+     *
+     * @param minimumSize Minimum length of the buffer.
+     * @return A buffer of at least the given length, to be handed back with {@link #release(byte[])}.
+     */
+    public byte[] acquire(int minimumSize) {
+        int index = classIndex(minimumSize);
+
+        if (index >= classes.size()) {
+            return new byte[minimumSize];
+        }
+
+        byte[] buffer = classes.get(index).poll();
+
+        if (buffer == null) {
+            return new byte[1 << (index + MIN_SHIFT)];
+        }
+
+        retainedBytes.addAndGet(-buffer.length);
+
+        return buffer;
+    }
+
+    /**
+     * Hands a buffer back to the pool. The buffer must not be used afterwards.
+     *
+     * @param buffer A buffer obtained from {@link #acquire(int)}.
+     */
+    public void release(byte[] buffer) {
+        int length = buffer.length;
+        int index = classIndex(length);
+
+        if (index >= classes.size() || 1 << (index + MIN_SHIFT) != length) {
+            return;
+        }
+
+        long retained = retainedBytes.addAndGet(length);
+
+        if (retained > maxRetainedBytes || !classes.get(index).offer(buffer)) {
+            retainedBytes.addAndGet(-length);
+            return;
+        }
+
+        MemoryBudget budget = memoryBudget;
+
+        // Buffers cycling through the pool don't add memory; only crossing a step upwards does
+        if (budget != null && retained / enforceStep != (retained - length) / enforceStep) {
+            budget.enforce();
+        }
+    }
+
+    /**
+     * @param memoryBudget The budget enforced as the idle buffers grow, or null. Set by
+     *                     {@link io.github.yagato.holodexwrapper.HolodexClient#setMemoryBudget}.
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Reads a stream until its end into a pooled buffer.
+     *
+     * @param in The stream to read. It isn't closed.
+     * @param sizeHint Expected number of bytes, or a negative number if unknown.
+     * @return The bytes read; close it to hand the buffer back to the pool.
+     * @throws IOException If the stream can't be read.
+     */
+    public PooledBuffer readFully(InputStream in, long sizeHint) throws IOException {
+        int initialSize = sizeHint > 0 && sizeHint < Integer.MAX_VALUE - 1 ? (int) sizeHint + 1 : 1 << (MIN_SHIFT + 1);
+        byte[] buffer = acquire(initialSize);
+        int length = 0;
+
+        try {
+            while (true) {
+                if (length == buffer.length) {
+                    byte[] grown = acquire(buffer.length * 2);
+                    System.arraycopy(buffer, 0, grown, 0, length);
+                    release(buffer);
+                    buffer = grown;
+                }
+
+                int read = in.read(buffer, length, buffer.length - length);
+
+                if (read < 0) {
+                    return new PooledBuffer(this, buffer, length);
+                }
+
+                length += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * @return Total size of the idle buffers currently kept by the pool.
+     */
+    @Override
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Drops every idle buffer, e.g. to give memory back under pressure.
+     */
+    public void clear() {
+        for (BlockingQueue<byte[]> sizeClass : classes) {
+            byte[] buffer;
+
+            while ((buffer = sizeClass.poll()) != null) {
+                retainedBytes.addAndGet(-buffer.length);
+            }
+        }
+    }
+
+    /**
+     * Drops idle buffers, the largest first, until the pool keeps at most the given size.
+     *
+     * @param bytes The number of bytes to keep.
+     */
+    @Override
+    public void trimTo(long bytes) {
+        for (int i = classes.size() - 1; i >= 0 && retainedBytes.get() > bytes; i--) {
+            byte[] buffer;
+
+            while (retainedBytes.get() > bytes && (buffer = classes.get(i).poll()) != null) {
+                retainedBytes.addAndGet(-buffer.length);
+            }
+        }
+    }
+
+    private static int classIndex(int size) {
+        if (size <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+}
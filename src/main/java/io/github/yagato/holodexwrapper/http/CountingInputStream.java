@@ -0,0 +1,83 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Reports the number of bytes read through it once it's closed, and remembers whether its end was
+ * reached.
+ */
+class CountingInputStream extends FilterInputStream {
+
+    private final LongConsumer sink;
+    private long count;
+    private boolean reported;
+    private boolean atEnd;
+
+    CountingInputStream(InputStream in, LongConsumer sink) {
+        super(in);
+        this.sink = sink;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+
+        if (b >= 0) {
+            count++;
+        } else {
+            atEnd = true;
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+
+        if (n > 0) {
+            count += n;
+        } else if (n < 0) {
+            atEnd = true;
+        }
+
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        report();
+        super.close();
+    }
+
+    /**
+     * @return Whether a read returned the end of the stream.
+     */
+    boolean isAtEnd() {
+        return atEnd;
+    }
+
+    void report() {
+        if (!reported) {
+            reported = true;
+            sink.accept(count);
+        }
+    }
+
+}
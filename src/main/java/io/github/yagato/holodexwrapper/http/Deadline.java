@@ -0,0 +1,82 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.time.Duration;
+
+/**
+ * A point in time by which a call must be finished, measured with {@link System#nanoTime()}.
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param timeout How long from now the deadline is.
+     * @return A deadline the given time from now.
+     */
+    public static Deadline after(Duration timeout) {
+        long nanos;
+
+        try {
+            nanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            nanos = Long.MAX_VALUE / 2;
+        }
+
+        return new Deadline(System.nanoTime() + Math.min(nanos, Long.MAX_VALUE / 2));
+    }
+
+    /**
+     * @param first A deadline, possibly null.
+     * @param second A deadline, possibly null.
+     * @return The earliest of the two, or null if both are null.
+     */
+    public static Deadline earliest(Deadline first, Deadline second) {
+        if (first == null) {
+            return second;
+        }
+
+        if (second == null) {
+            return first;
+        }
+
+        return first.deadlineNanos - second.deadlineNanos <= 0 ? first : second;
+    }
+
+    /**
+     * @return Nanoseconds left until the deadline, negative once it has passed.
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * @return Milliseconds left until the deadline, rounded up, and 0 once it has passed.
+     */
+    public long remainingMillis() {
+        long remaining = remainingNanos();
+
+        return remaining <= 0 ? 0 : (remaining + 999_999) / 1_000_000;
+    }
+
+    /**
+     * @return Whether the deadline has passed.
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @param what What was being done, used in the exception message.
+     * @throws DeadlineExceededException If the deadline has passed.
+     */
+    public void check(String what) throws DeadlineExceededException {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded while " + what);
+        }
+    }
+
+}
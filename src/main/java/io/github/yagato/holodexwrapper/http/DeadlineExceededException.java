@@ -0,0 +1,14 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+/**
+ * Thrown when a call doesn't finish before its {@link Deadline}.
+ */
+public class DeadlineExceededException extends UnirestException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+}
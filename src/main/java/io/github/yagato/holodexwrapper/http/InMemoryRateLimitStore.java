@@ -0,0 +1,28 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps bucket states in this process only.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long get(String bucket) {
+        return state(bucket).get();
+    }
+
+    @Override
+    public boolean compareAndSet(String bucket, long expected, long update) {
+        return state(bucket).compareAndSet(expected, update);
+    }
+
+    private AtomicLong state(String bucket) {
+        return buckets.computeIfAbsent(bucket, name -> new AtomicLong());
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pool of raw (nowrap) Inflaters, plus the buffer pool their input buffers come from, reused
+ * across responses so that decompressing a body doesn't allocate native zlib state and a new buffer
+ * every time.
+ */
+class InflaterPool {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private final BlockingQueue<Inflater> inflaters;
+    private final BufferPool buffers;
+
+    InflaterPool(int capacity, BufferPool buffers) {
+        this.inflaters = new ArrayBlockingQueue<>(capacity);
+        this.buffers = buffers;
+    }
+
+    Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+
+        return inflater == null ? new Inflater(true) : inflater;
+    }
+
+    void release(Inflater inflater) {
+        inflater.reset();
+
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    byte[] acquireBuffer() {
+        return buffers.acquire(BUFFER_SIZE);
+    }
+
+    void release(byte[] buffer) {
+        buffers.release(buffer);
+    }
+
+}
@@ -0,0 +1,257 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip or deflate response body with a pooled Inflater and input buffer, which are
+ * handed back to the pool when the stream is closed.
+ *
+ * <br><br>
+ *
+ * The gzip header is parsed here so that a raw Inflater can be used for both encodings. Once the
+ * compressed data ends, its trailer (CRC-32 and size for gzip, Adler-32 for zlib) is read and
+ * checked, and the underlying stream is read to its end: HttpClient only hands the connection back
+ * to its pool once it has seen the end of the body.
+ */
+class InflatingInputStream extends InputStream {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int GZIP_TRAILER_BYTES = 8;
+    private static final int ZLIB_TRAILER_BYTES = 4;
+
+    private final InputStream in;
+    private final InflaterPool pool;
+    private Inflater inflater;
+    private byte[] buffer;
+    private final byte[] single = new byte[1];
+    private Checksum checksum;
+    private int trailerBytes;
+    private int inputLength;
+    private long inflatedBytes;
+    private boolean finished;
+
+    private InflatingInputStream(InputStream in, InflaterPool pool) {
+        this.in = in;
+        this.pool = pool;
+        this.inflater = pool.acquireInflater();
+        this.buffer = pool.acquireBuffer();
+    }
+
+    static InflatingInputStream gzip(InputStream in, InflaterPool pool) throws IOException {
+        readGzipHeader(in);
+
+        InflatingInputStream stream = new InflatingInputStream(in, pool);
+        stream.checksum = new CRC32();
+        stream.trailerBytes = GZIP_TRAILER_BYTES;
+
+        return stream;
+    }
+
+    static InflatingInputStream deflate(InputStream in, InflaterPool pool) throws IOException {
+        InflatingInputStream stream = new InflatingInputStream(in, pool);
+        int first = stream.in.read();
+        int second = stream.in.read();
+
+        if (first < 0 || second < 0) {
+            stream.close();
+            throw new EOFException("Unexpected end of deflate stream");
+        }
+
+        // HTTP "deflate" is meant to be zlib-wrapped, but some servers send raw deflate data
+        boolean zlibHeader = (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+
+        if (zlibHeader) {
+            stream.checksum = new Adler32();
+            stream.trailerBytes = ZLIB_TRAILER_BYTES;
+        } else {
+            stream.buffer[0] = (byte) first;
+            stream.buffer[1] = (byte) second;
+            stream.inputLength = 2;
+            stream.inflater.setInput(stream.buffer, 0, 2);
+        }
+
+        return stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (inflater == null) {
+            throw new IOException("Stream closed");
+        }
+
+        if (finished) {
+            return -1;
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        try {
+            while (true) {
+                int n = inflater.inflate(b, off, len);
+
+                if (n > 0) {
+                    if (checksum != null) {
+                        checksum.update(b, off, n);
+                    }
+
+                    inflatedBytes += n;
+                    return n;
+                }
+
+                if (inflater.finished()) {
+                    finish();
+                    return -1;
+                }
+
+                if (inflater.needsDictionary()) {
+                    throw new ZipException("Preset dictionaries aren't supported");
+                }
+
+                if (inflater.needsInput()) {
+                    int read = in.read(buffer, 0, buffer.length);
+
+                    if (read < 0) {
+                        throw new EOFException("Unexpected end of compressed stream");
+                    }
+
+                    inputLength = read;
+                    inflater.setInput(buffer, 0, read);
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+    }
+
+    // Checks the trailer, then reads the underlying stream to its end so its connection can be reused
+    private void finish() throws IOException {
+        int remaining = inflater.getRemaining();
+        int next = inputLength - remaining;
+        long trailer = 0;
+
+        for (int i = 0; i < trailerBytes; i++) {
+            int b = remaining > 0 ? buffer[next++] & 0xff : in.read();
+
+            if (b < 0) {
+                throw new EOFException("Unexpected end of compressed stream trailer");
+            }
+
+            remaining = Math.max(0, remaining - 1);
+
+            // The gzip trailer is little-endian, the zlib one big-endian
+            if (trailerBytes == GZIP_TRAILER_BYTES) {
+                trailer |= (long) b << (8 * i);
+            } else {
+                trailer = trailer << 8 | b;
+            }
+        }
+
+        if (trailerBytes == GZIP_TRAILER_BYTES) {
+            if ((int) trailer != (int) checksum.getValue()) {
+                throw new ZipException("Corrupt gzip stream: CRC-32 mismatch");
+            }
+
+            if ((int) (trailer >>> 32) != (int) inflatedBytes) {
+                throw new ZipException("Corrupt gzip stream: size mismatch");
+            }
+        } else if (trailerBytes == ZLIB_TRAILER_BYTES && (int) trailer != (int) checksum.getValue()) {
+            throw new ZipException("Corrupt deflate stream: Adler-32 mismatch");
+        }
+
+        if (remaining > 0 || in.read() >= 0) {
+            throw new ZipException("Unexpected data after the compressed stream");
+        }
+
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) {
+            pool.release(inflater);
+            pool.release(buffer);
+            inflater = null;
+            buffer = null;
+        }
+
+        in.close();
+    }
+
+    private static void readGzipHeader(InputStream in) throws IOException {
+        if (readUnsignedShort(in) != GZIP_MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+
+        if (readUnsignedByte(in) != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+
+        int flags = readUnsignedByte(in);
+
+        // MTIME (4), XFL (1), OS (1)
+        skipBytes(in, 6);
+
+        if ((flags & FEXTRA) == FEXTRA) {
+            skipBytes(in, readUnsignedShort(in));
+        }
+
+        if ((flags & FNAME) == FNAME) {
+            while (readUnsignedByte(in) != 0) {
+                // skip the file name
+            }
+        }
+
+        if ((flags & FCOMMENT) == FCOMMENT) {
+            while (readUnsignedByte(in) != 0) {
+                // skip the comment
+            }
+        }
+
+        if ((flags & FHCRC) == FHCRC) {
+            skipBytes(in, 2);
+        }
+    }
+
+    private static int readUnsignedShort(InputStream in) throws IOException {
+        int low = readUnsignedByte(in);
+
+        return (readUnsignedByte(in) << 8) | low;
+    }
+
+    private static int readUnsignedByte(InputStream in) throws IOException {
+        int b = in.read();
+
+        if (b < 0) {
+            throw new EOFException("Unexpected end of gzip header");
+        }
+
+        return b;
+    }
+
+    private static void skipBytes(InputStream in, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readUnsignedByte(in);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps bucket states in a memory-mapped file, so that every process on the host mapping the same
+ * file shares them. Updates are compare-and-set instructions on the mapped memory, without locks or
+ * system calls.
+ *
+ * <br><br>
+ *
+ * The file is a table of fixed-size slots, each holding the hash of a bucket name and the bucket's
+ * state. A bucket claims a free slot the first time it's used, by linear probing from its hash. The
+ * table doesn't grow, and all processes must use the same byte order, i.e. run on the same host.
+ */
+public class MappedFileRateLimitStore implements RateLimitStore, Closeable {
+
+    public static final int DEFAULT_SLOTS = 1024;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long MAGIC = 0x484F4C4F52415445L;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final Map<String, Integer> offsets = new ConcurrentHashMap<>();
+
+    /**
+     * Maps the file with {@link #DEFAULT_SLOTS} slots, creating it if needed.
+     *
+     * @param file The file shared by the processes.
+     * @throws IOException If the file can't be created or mapped.
+     */
+    public MappedFileRateLimitStore(Path file) throws IOException {
+        this(file, DEFAULT_SLOTS);
+    }
+
+    /**
+     * Maps the file, creating it with the given number of slots if needed. An existing file keeps
+     * its size.
+     *
+     * @param file The file shared by the processes.
+     * @param slots Maximum number of buckets, if the file is created.
+     * @throws IOException If the file can't be created or mapped, or isn't a rate limit file.
+     */
+    public MappedFileRateLimitStore(Path file, int slots) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            long size;
+
+            // Sizing is the only step that must not race with another process
+            try (FileLock ignored = channel.lock()) {
+                size = channel.size();
+
+                if (size == 0) {
+                    size = HEADER_BYTES + (long) slots * SLOT_BYTES;
+                    channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+                }
+            }
+
+            if (size < HEADER_BYTES + SLOT_BYTES || (size - HEADER_BYTES) % SLOT_BYTES != 0) {
+                throw new IOException(file + " isn't a rate limit file");
+            }
+
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            this.slots = (int) ((size - HEADER_BYTES) / SLOT_BYTES);
+
+            long magic = (long) LONGS.getVolatile(buffer, 0);
+
+            if (magic != MAGIC && !(magic == 0 && (LONGS.compareAndSet(buffer, 0, 0L, MAGIC)
+                    || (long) LONGS.getVolatile(buffer, 0) == MAGIC))) {
+                throw new IOException(file + " isn't a rate limit file");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long get(String bucket) {
+        return (long) LONGS.getVolatile(buffer, offset(bucket) + 8);
+    }
+
+    @Override
+    public boolean compareAndSet(String bucket, long expected, long update) {
+        return LONGS.compareAndSet(buffer, offset(bucket) + 8, expected, update);
+    }
+
+    /**
+     * @return Maximum number of buckets.
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Closes the file. The mapping itself is released once this store has been garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int offset(String bucket) {
+        Integer offset = offsets.get(bucket);
+
+        if (offset == null) {
+            offset = claim(bucket);
+            offsets.put(bucket, offset);
+        }
+
+        return offset;
+    }
+
+    private int claim(String bucket) {
+        long hash = hash(bucket);
+        int start = (int) Long.remainderUnsigned(hash, slots);
+
+        for (int i = 0; i < slots; i++) {
+            int offset = HEADER_BYTES + ((start + i) % slots) * SLOT_BYTES;
+            long owner = (long) LONGS.getVolatile(buffer, offset);
+
+            if (owner == 0 && LONGS.compareAndSet(buffer, offset, 0L, hash)) {
+                return offset;
+            }
+
+            if (owner == hash || (long) LONGS.getVolatile(buffer, offset) == hash) {
+                return offset;
+            }
+        }
+
+        throw new IllegalStateException("No free slot left for bucket " + bucket);
+    }
+
+    // 64-bit FNV-1a, never 0 since 0 marks a free slot
+    private static long hash(String bucket) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : bucket.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.io.Closeable;
+
+/**
+ * Bytes held in a buffer borrowed from a {@link BufferPool}. Closing it hands the buffer back, after
+ * which the array must not be used anymore.
+ */
+public class PooledBuffer implements Closeable {
+
+    private final BufferPool pool;
+    private byte[] array;
+    private final int length;
+
+    PooledBuffer(BufferPool pool, byte[] array, int length) {
+        this.pool = pool;
+        this.array = array;
+        this.length = length;
+    }
+
+    /**
+     * @return The backing array; only the first {@link #length()} bytes are meaningful.
+     */
+    public byte[] array() {
+        if (array == null) {
+            throw new IllegalStateException("Buffer already released");
+        }
+
+        return array;
+    }
+
+    /**
+     * @return Number of meaningful bytes in the array.
+     */
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void close() {
+        if (array != null) {
+            pool.release(array);
+            array = null;
+        }
+    }
+
+}
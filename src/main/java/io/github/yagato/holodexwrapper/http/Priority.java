@@ -0,0 +1,38 @@
+package io.github.yagato.holodexwrapper.http;
+
+/**
+ * How urgent a request is, used by {@link io.github.yagato.holodexwrapper.concurrent.RequestScheduler}
+ * to share the rate limit between workloads. Each class is served in proportion to its weight while
+ * others are waiting, and can use all the capacity they leave.
+ */
+public enum Priority {
+
+    /**
+     * Latency-critical requests, e.g. live polling. Requests to /live and /users/live default to it.
+     */
+    HIGH(8),
+
+    /**
+     * The default.
+     */
+    NORMAL(3),
+
+    /**
+     * Backfills and other work that can run in leftover capacity; shed first under load.
+     */
+    LOW(1);
+
+    private final int weight;
+
+    Priority(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return Share of the capacity this class gets relative to the others.
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+}
@@ -0,0 +1,30 @@
+package io.github.yagato.holodexwrapper.http;
+
+/**
+ * Where the state of {@link RateLimiter} buckets is kept. Limiters in different processes that use
+ * the same store and bucket name share one budget.
+ *
+ * <br><br>
+ *
+ * The state of a bucket is a single long, updated with compare-and-set, so a store only needs to
+ * provide atomic reads and conditional writes of one value per bucket. Unknown buckets read as 0.
+ */
+public interface RateLimitStore {
+
+    /**
+     * @param bucket The name of the bucket.
+     * @return The state of the bucket, 0 if it was never written.
+     */
+    long get(String bucket);
+
+    /**
+     * Sets the state of the bucket if it's still the expected one.
+     *
+     * @param bucket The name of the bucket.
+     * @param expected The state last read.
+     * @param update The new state.
+     * @return Whether the state was updated.
+     */
+    boolean compareAndSet(String bucket, long expected, long update);
+
+}
@@ -0,0 +1,212 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many requests are sent per period. Permits are refilled continuously, and up to a
+ * whole period's worth can be spent in a burst.
+ *
+ * <br><br>
+ *
+ * The limiter is implemented as a generic cell rate algorithm, whose whole state is one timestamp:
+ * the time at which the bucket would be full again. That state lives in a {@link RateLimitStore}, so
+ * limiters in several processes can share a budget by using the same store and bucket name, e.g. a
+ * {@link MappedFileRateLimitStore} for replicas on one host. Timestamps are wall-clock microseconds,
+ * so processes sharing a bucket must have synchronized clocks.
+ */
+public class RateLimiter {
+
+    /**
+     * Holodex's documented limit per API key.
+     */
+    public static final int HOLODEX_REQUESTS = 80;
+
+    /**
+     * Period of Holodex's documented limit.
+     */
+    public static final Duration HOLODEX_PERIOD = Duration.ofMinutes(2);
+
+    private static final String LOCAL_BUCKET = "local";
+
+    private final int permits;
+    private final long intervalMicros;
+    private final long burstMicros;
+    private final RateLimitStore store;
+    private final String bucket;
+
+    /**
+     * Creates a limiter whose state is kept in this process.
+     *
+     * @param permits Number of requests allowed per period.
+     * @param period The period.
+     */
+    public RateLimiter(int permits, Duration period) {
+        this(permits, period, new InMemoryRateLimitStore(), LOCAL_BUCKET);
+    }
+
+    /**
+     * Creates a limiter whose state is kept in the given store, shared with every limiter using the
+     * same bucket.
+     *
+     * @param permits Number of requests allowed per period.
+     * @param period The period.
+     * @param store Where the state is kept.
+     * @param bucket The name of the bucket, e.g. from {@link #bucketFor(String)}.
+     */
+    public RateLimiter(int permits, Duration period, RateLimitStore store, String bucket) {
+        if (permits < 1) {
+            throw new RuntimeException("permits must be at least 1");
+        }
+
+        this.permits = permits;
+        this.intervalMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(period.toNanos()) / permits);
+        this.burstMicros = intervalMicros * (permits - 1);
+        this.store = store;
+        this.bucket = bucket;
+    }
+
+    /**
+     * @return A limiter matching Holodex's limit of 80 requests per 2 minutes.
+     */
+    public static RateLimiter holodexDefault() {
+        return new RateLimiter(HOLODEX_REQUESTS, HOLODEX_PERIOD);
+    }
+
+    /**
+     * @param store Where the state is kept.
+     * @param bucket The name of the bucket, e.g. from {@link #bucketFor(String)}.
+     * @return A limiter matching Holodex's limit of 80 requests per 2 minutes, sharing its budget with
+     *         every limiter using the same bucket.
+     */
+    public static RateLimiter holodexDefault(RateLimitStore store, String bucket) {
+        return new RateLimiter(HOLODEX_REQUESTS, HOLODEX_PERIOD, store, bucket);
+    }
+
+    /**
+     * @param apiKey An API key.
+     * @return A bucket name for the key that doesn't reveal it, for stores other processes can read.
+     */
+    public static String bucketFor(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            StringBuilder stringBuilder = new StringBuilder("holodex-key-");
+
+            for (int i = 0; i < 8; i++) {
+                stringBuilder.append(String.format("%02x", digest[i]));
+            }
+
+            return stringBuilder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Takes a permit, waiting for one if needed.
+     *
+     * @param deadline The deadline of the call, or null to wait as long as needed.
+     * @throws DeadlineExceededException If no permit becomes available before the deadline.
+     * @throws UnirestException If the thread is interrupted while waiting.
+     */
+    public void acquire(Deadline deadline) throws UnirestException {
+        while (true) {
+            long waitNanos = tryAcquireOrWait();
+
+            if (waitNanos == 0) {
+                return;
+            }
+
+            if (deadline != null && deadline.remainingNanos() < waitNanos) {
+                throw new DeadlineExceededException("Deadline exceeded while waiting for the rate limit");
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnirestException(e);
+            }
+        }
+    }
+
+    /**
+     * Takes a permit if one is available right away.
+     *
+     * @return Whether a permit was taken.
+     */
+    public boolean tryAcquire() {
+        return tryAcquireOrWait() == 0;
+    }
+
+    /**
+     * @return Nanoseconds until a permit is available, 0 if one is available now.
+     */
+    public long nanosUntilAvailable() {
+        long now = nowMicros();
+        long waitMicros = Math.max(store.get(bucket), now) - burstMicros - now;
+
+        return waitMicros <= 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(waitMicros);
+    }
+
+    /**
+     * @return Number of permits that can be taken right away.
+     */
+    public int availablePermits() {
+        long now = nowMicros();
+        long backlog = Math.max(store.get(bucket), now) - now;
+
+        return (int) Math.max(0, (burstMicros + intervalMicros - backlog) / intervalMicros);
+    }
+
+    /**
+     * @return Number of requests allowed per period.
+     */
+    public int getPermits() {
+        return permits;
+    }
+
+    /**
+     * Drops every available permit, e.g. after the API reported that the limit was hit.
+     */
+    public void drain() {
+        while (true) {
+            long state = store.get(bucket);
+            long drained = nowMicros() + burstMicros + intervalMicros;
+
+            if (state >= drained || store.compareAndSet(bucket, state, drained)) {
+                return;
+            }
+        }
+    }
+
+    private long tryAcquireOrWait() {
+        while (true) {
+            long state = store.get(bucket);
+            long now = nowMicros();
+            long full = Math.max(state, now);
+            long waitMicros = full - burstMicros - now;
+
+            if (waitMicros > 0) {
+                return TimeUnit.MICROSECONDS.toNanos(waitMicros);
+            }
+
+            if (store.compareAndSet(bucket, state, full + intervalMicros)) {
+                return 0;
+            }
+        }
+    }
+
+    private static long nowMicros() {
+        Instant now = Instant.now();
+
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+}
@@ -0,0 +1,156 @@
+package io.github.yagato.holodexwrapper.http;
+
+/**
+ * The options, deadline and cancellation state of the call the current thread is working on.
+ *
+ * <br><br>
+ *
+ * A context is installed on the calling thread with {@link #enter()}, and tasks a call fans out to
+ * enter a {@link #child()} so that they share its deadline. Requests sent while a context is active
+ * are aborted as soon as the deadline passes or the context is cancelled.
+ */
+public final class RequestContext {
+
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    private final RequestOptions options;
+    private final Deadline deadline;
+    private final RequestContext parent;
+    private volatile boolean cancelled;
+
+    private RequestContext(RequestOptions options, Deadline deadline, RequestContext parent) {
+        this.options = options;
+        this.deadline = deadline;
+        this.parent = parent;
+    }
+
+    /**
+     * Creates a context for a new call. If the current thread is already in a call, the new one is
+     * nested in it and can't outlive its deadline.
+     *
+     * @param options The options of the call.
+     * @return The context, not entered yet.
+     */
+    public static RequestContext create(RequestOptions options) {
+        RequestContext outer = current();
+        Deadline deadline = options.getTimeout() == null ? null : Deadline.after(options.getTimeout());
+
+        if (outer != null) {
+            deadline = Deadline.earliest(deadline, outer.deadline);
+        }
+
+        return new RequestContext(options, deadline, outer);
+    }
+
+    /**
+     * @return A context for a task the current call fans out to: a child of the current context, or a
+     *         new context without deadline if the thread isn't in a call.
+     */
+    public static RequestContext fork() {
+        RequestContext current = current();
+
+        return current == null ? new RequestContext(new RequestOptions(), null, null) : current.child();
+    }
+
+    /**
+     * @param options The options of the call.
+     * @return A context for work that outlives the current call, e.g. a background refresh: it has no
+     *         deadline and isn't cancelled along with the current call.
+     */
+    public static RequestContext detached(RequestOptions options) {
+        return new RequestContext(options, null, null);
+    }
+
+    /**
+     * @return The context of the call the current thread is working on, or null if none.
+     */
+    public static RequestContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return The deadline of the call the current thread is working on, or null if none.
+     */
+    public static Deadline currentDeadline() {
+        RequestContext context = CURRENT.get();
+
+        return context == null ? null : context.deadline;
+    }
+
+    /**
+     * @return A context sharing this one's options and deadline, cancelled along with it, for a task
+     *         the call fans out to.
+     */
+    public RequestContext child() {
+        return new RequestContext(options, deadline, this);
+    }
+
+    /**
+     * Makes this the current thread's context until the returned scope is closed.
+     *
+     * @return The scope, which restores the previous context when closed.
+     */
+    public Scope enter() {
+        RequestContext previous = CURRENT.get();
+        CURRENT.set(this);
+
+        return new Scope(previous);
+    }
+
+    /**
+     * Cancels the call; requests made in this context or its children are aborted.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return Whether this context or one it belongs to has been cancelled.
+     */
+    public boolean isCancelled() {
+        for (RequestContext context = this; context != null; context = context.parent) {
+            if (context.cancelled) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The options of the call.
+     */
+    public RequestOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * @return The deadline of the call, or null if it has none.
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Restores the previous context of the thread when closed.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final RequestContext previous;
+
+        private Scope(RequestContext previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+
+    }
+
+}
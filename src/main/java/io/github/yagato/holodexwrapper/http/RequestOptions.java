@@ -0,0 +1,52 @@
+package io.github.yagato.holodexwrapper.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Options applied to every request made by a call, see
+ * {@link io.github.yagato.holodexwrapper.HolodexClient#call(RequestOptions, io.github.yagato.holodexwrapper.HolodexCall)}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestOptions {
+
+    /**
+     * Time the whole call may take, including waiting for the rate limit, connecting, reading and
+     * parsing, and every page or batch it's made of. Null for no limit.
+     */
+    private Duration timeout;
+
+    /**
+     * Priority of every request of the call. Null for the default: {@link Priority#HIGH} for live
+     * endpoints and {@link Priority#NORMAL} for the others.
+     */
+    private Priority priority;
+
+    /**
+     * @param timeout Time the whole call may take.
+     * @return Options with only a timeout set.
+     */
+    public static RequestOptions timeout(Duration timeout) {
+        RequestOptions options = new RequestOptions();
+        options.setTimeout(timeout);
+
+        return options;
+    }
+
+    /**
+     * @param priority Priority of every request of the call.
+     * @return Options with only a priority set.
+     */
+    public static RequestOptions priority(Priority priority) {
+        RequestOptions options = new RequestOptions();
+        options.setPriority(priority);
+
+        return options;
+    }
+
+}
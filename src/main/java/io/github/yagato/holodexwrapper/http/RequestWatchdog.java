@@ -0,0 +1,98 @@
+package io.github.yagato.holodexwrapper.http;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aborts requests in flight whose deadline has passed, whose call has been cancelled, or whose
+ * sending thread has been interrupted. Blocking socket reads don't react to interrupts, so this is
+ * what makes them cancellable.
+ */
+final class RequestWatchdog {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 50;
+    private static final RequestWatchdog SHARED = new RequestWatchdog();
+
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService sweeper;
+
+    static RequestWatchdog shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param request The request to watch.
+     * @param context The context it was sent in, or null.
+     * @return The watch, to be closed once the response has been closed.
+     */
+    Watch watch(HttpUriRequest request, RequestContext context) {
+        Watch watch = new Watch(request, Thread.currentThread(), context);
+        watches.add(watch);
+        ensureStarted();
+
+        return watch;
+    }
+
+    private void sweep() {
+        for (Watch watch : watches) {
+            if (watch.shouldAbort()) {
+                watch.request.abort();
+                watches.remove(watch);
+            }
+        }
+    }
+
+    private void ensureStarted() {
+        if (sweeper != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (sweeper == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "holodex-request-watchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+                executor.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS,
+                        TimeUnit.MILLISECONDS);
+                sweeper = executor;
+            }
+        }
+    }
+
+    final class Watch implements AutoCloseable {
+
+        private final HttpUriRequest request;
+        private final Thread owner;
+        private final RequestContext context;
+
+        private Watch(HttpUriRequest request, Thread owner, RequestContext context) {
+            this.request = request;
+            this.owner = owner;
+            this.context = context;
+        }
+
+        boolean shouldAbort() {
+            if (owner.isInterrupted()) {
+                return true;
+            }
+
+            return context != null && (context.isCancelled()
+                    || context.getDeadline() != null && context.getDeadline().isExpired());
+        }
+
+        @Override
+        public void close() {
+            watches.remove(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,213 @@
+package io.github.yagato.holodexwrapper.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A response whose body is streamed from the network and decompressed on the fly. Closing it once
+ * the body has been read to its end hands the connection back to the pool; closing it before
+ * aborts the request and drops the connection.
+ */
+public class Response implements Closeable {
+
+    private static final int SNIPPET_BYTES = 256;
+
+    private final HttpUriRequest request;
+    private final HttpResponse response;
+    private final Transport transport;
+    private final RequestWatchdog.Watch watch;
+    private final AdaptiveConcurrencyLimiter.Permit permit;
+    private Runnable closeListener;
+    private CountingInputStream wire;
+    private CountingInputStream decoded;
+    private boolean closed;
+
+    Response(HttpUriRequest request,
+             HttpResponse response,
+             Transport transport,
+             RequestWatchdog.Watch watch,
+             AdaptiveConcurrencyLimiter.Permit permit) {
+        this.request = request;
+        this.response = response;
+        this.transport = transport;
+        this.watch = watch;
+        this.permit = permit;
+    }
+
+    /**
+     * @return The HTTP status code.
+     */
+    public int getStatus() {
+        return response.getStatusLine().getStatusCode();
+    }
+
+    /**
+     * @param name A header name.
+     * @return The first value of the header, or null if it's absent.
+     */
+    public String getHeader(String name) {
+        Header header = response.getFirstHeader(name);
+
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * Checks that the response is a success carrying JSON, before its body is deserialized. A missing
+     * Content-Type is accepted.
+     *
+     * @throws UnexpectedResponseException If the status isn't 2xx or the body isn't JSON.
+     */
+    public void requireJson() throws UnexpectedResponseException {
+        int status = getStatus();
+        String contentType = getHeader("Content-Type");
+        boolean json = contentType == null || contentType.toLowerCase().contains("json");
+
+        if (status < 200 || status >= 300 || !json) {
+            throw new UnexpectedResponseException(status, contentType, readSnippet());
+        }
+    }
+
+    private String readSnippet() {
+        try {
+            byte[] snippet = getBody().readNBytes(SNIPPET_BYTES);
+
+            return new String(snippet, StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * @return The decompressed body, read as it arrives from the network.
+     * @throws IOException If the body can't be opened.
+     */
+    public InputStream getBody() throws IOException {
+        if (decoded != null) {
+            return decoded;
+        }
+
+        HttpEntity entity = response.getEntity();
+        InputStream content = entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+        TransportStats stats = transport.getStats();
+        String encoding = getHeader("Content-Encoding");
+
+        wire = new CountingInputStream(content, stats::recordWireBytes);
+
+        InputStream body;
+
+        if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+            stats.recordCompressedResponse();
+            body = InflatingInputStream.gzip(wire, transport.getInflaterPool());
+        } else if ("deflate".equalsIgnoreCase(encoding)) {
+            stats.recordCompressedResponse();
+            body = InflatingInputStream.deflate(wire, transport.getInflaterPool());
+        } else {
+            body = wire;
+        }
+
+        decoded = new CountingInputStream(body, stats::recordDecodedBytes);
+
+        return decoded;
+    }
+
+    /**
+     * Reads the whole decompressed body into a buffer borrowed from the transport's pool.
+     *
+     * @return The body; close it once it has been decoded.
+     * @throws IOException If the body can't be read.
+     */
+    public PooledBuffer readFully() throws IOException {
+        HttpEntity entity = response.getEntity();
+        boolean identity = getHeader("Content-Encoding") == null;
+        long sizeHint = entity != null && identity ? entity.getContentLength() : -1;
+
+        return transport.getBufferPool().readFully(getBody(), sizeHint);
+    }
+
+    /**
+     * Registers an action run once the response has been closed, e.g. to release a permit held for
+     * the duration of the request. Actions registered earlier are run first.
+     *
+     * @param listener The action.
+     */
+    public void addCloseListener(Runnable listener) {
+        Runnable previous = closeListener;
+        closeListener = previous == null ? listener : () -> {
+            previous.run();
+            listener.run();
+        };
+    }
+
+    /**
+     * Aborts the request, making any read of the body in progress fail. Unlike {@link #close()}, this
+     * may be called from any thread; the response must still be closed by the thread reading it.
+     */
+    public void abort() {
+        request.abort();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        watch.close();
+
+        if (permit != null) {
+            permit.release();
+        }
+
+        // A body read to its end is closed first, which releases the connection for reuse. Otherwise
+        // closing the response first drops the connection, instead of reading the rest of the body
+        // just to be able to reuse it
+        if (decoded != null && decoded.isAtEnd()) {
+            closeBody();
+            closeResponse();
+        } else {
+            closeResponse();
+            closeBody();
+        }
+
+        if (closeListener != null) {
+            closeListener.run();
+        }
+    }
+
+    private void closeResponse() {
+        try {
+            if (response instanceof Closeable) {
+                ((Closeable) response).close();
+            } else {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        } catch (IOException e) {
+            request.abort();
+        }
+    }
+
+    private void closeBody() {
+        if (decoded == null) {
+            return;
+        }
+
+        try {
+            decoded.close();
+        } catch (IOException ignored) {
+            // The response is closed regardless
+        }
+
+        wire.report();
+    }
+
+}
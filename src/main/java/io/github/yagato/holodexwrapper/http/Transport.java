@@ -0,0 +1,299 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.http.options.Option;
+import com.mashape.unirest.http.options.Options;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+/**
+ * Sends requests to Holodex and hands back responses whose body is still being streamed from the
+ * network, so callers can start parsing before the whole body has arrived.
+ *
+ * <br><br>
+ *
+ * Every request advertises {@code Accept-Encoding: gzip, deflate}. Compressed bodies are
+ * decompressed on the fly with pooled Inflaters and buffers, and the bytes received and decoded are
+ * recorded in the transport's {@link TransportStats}.
+ *
+ * <br><br>
+ *
+ * Requests sent within a {@link RequestContext} are bounded by its deadline: connect and read
+ * timeouts are shortened to the time left, and the request is aborted as soon as the deadline
+ * passes, the context is cancelled or the sending thread is interrupted.
+ *
+ * <br><br>
+ *
+ * {@link #fromUnirest()}, which clients use by default, picks up the proxy and timeouts set with
+ * {@code Unirest.setProxy} and {@code Unirest.setTimeouts}, or the HttpClient set with
+ * {@code Unirest.setHttpClient}, as they are when it's called. Otherwise the transport has its own
+ * HttpClient, and later Unirest settings don't apply to it. Pass the proxy and timeouts to
+ * {@link #Transport(HttpHost, int, int)}, or a configured HttpClient to
+ * {@link #Transport(HttpClient, BufferPool, RequestConfig)}.
+ */
+public class Transport {
+
+    private static final int MAX_CONNECTIONS = 200;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 20;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int SOCKET_TIMEOUT_MILLIS = 60000;
+    private static final int POOLED_INFLATERS = 64;
+
+    private final HttpClient httpClient;
+    private final BufferPool bufferPool;
+    private final InflaterPool inflaterPool;
+    private final TransportStats stats = new TransportStats();
+    private final RequestConfig requestConfig;
+    private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Creates a transport with its own pooled HttpClient, using the same defaults as Unirest.
+     */
+    public Transport() {
+        this(null, CONNECT_TIMEOUT_MILLIS, SOCKET_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a transport with its own pooled HttpClient.
+     *
+     * @param proxy The proxy to send requests through, or null to connect directly.
+     * @param connectTimeoutMillis How long to wait for a connection to be established, 0 for no limit.
+     * @param socketTimeoutMillis How long to wait for data once connected, 0 for no limit.
+     */
+    public Transport(HttpHost proxy, int connectTimeoutMillis, int socketTimeoutMillis) {
+        this(requestConfig(proxy, connectTimeoutMillis, socketTimeoutMillis), new BufferPool());
+    }
+
+    private Transport(RequestConfig requestConfig, BufferPool bufferPool) {
+        this(defaultHttpClient(requestConfig), bufferPool, requestConfig);
+    }
+
+    /**
+     * Creates a transport matching Unirest's current settings: the HttpClient given to
+     * {@code Unirest.setHttpClient} if any, otherwise a pooled HttpClient of its own with the proxy
+     * and timeouts given to {@code Unirest.setProxy} and {@code Unirest.setTimeouts}.
+     *
+     * <br><br>
+     *
+     * A custom HttpClient usually decompresses bodies itself, in which case they aren't counted
+     * compressed in the {@link TransportStats}.
+     *
+     * @return The transport.
+     */
+    public static Transport fromUnirest() {
+        Object httpClient = Options.getOption(Option.HTTPCLIENT);
+
+        if (httpClient instanceof HttpClient && isCustomUnirestClient()) {
+            return new Transport((HttpClient) httpClient, new BufferPool());
+        }
+
+        return new Transport(
+                requestConfig((HttpHost) Options.getOption(Option.PROXY),
+                        millis(Options.getOption(Option.CONNECTION_TIMEOUT), CONNECT_TIMEOUT_MILLIS),
+                        millis(Options.getOption(Option.SOCKET_TIMEOUT), SOCKET_TIMEOUT_MILLIS)),
+                new BufferPool());
+    }
+
+    /**
+     * Requests with a deadline are based on the HttpClient's default request config, its proxy
+     * included, when it exposes it.
+     *
+     * @param httpClient The HttpClient to send requests with. It should have content compression
+     *                   disabled, otherwise it decompresses bodies itself and the compressed sizes
+     *                   can't be recorded.
+     * @param bufferPool The pool response bodies are read into.
+     */
+    public Transport(HttpClient httpClient, BufferPool bufferPool) {
+        this(httpClient, bufferPool, defaultRequestConfig(httpClient));
+    }
+
+    /**
+     * @param httpClient The HttpClient to send requests with, with content compression disabled.
+     * @param bufferPool The pool response bodies are read into.
+     * @param requestConfig The HttpClient's default request config, which requests with a deadline
+     *                      are based on.
+     */
+    public Transport(HttpClient httpClient, BufferPool bufferPool, RequestConfig requestConfig) {
+        this.httpClient = httpClient;
+        this.requestConfig = requestConfig;
+        this.bufferPool = bufferPool;
+        this.inflaterPool = new InflaterPool(POOLED_INFLATERS, bufferPool);
+    }
+
+    /**
+     * Makes every request wait for a permit from the given limiter, held until its response is closed.
+     *
+     * @param concurrencyLimiter The limiter to use, or null to not limit concurrency beyond the
+     *                           HttpClient's connection pool.
+     */
+    public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * @return The concurrency limiter in use, or null if disabled.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Sends a request. The returned response must be closed once its body has been read.
+     *
+     * @param request The request to send.
+     * @return The response, with its body not read yet.
+     * @throws DeadlineExceededException If the deadline of the current call passed.
+     * @throws UnirestException If the request couldn't be sent or the response couldn't be received.
+     */
+    public Response execute(HttpUriRequest request) throws UnirestException {
+        RequestContext context = RequestContext.current();
+        Deadline deadline = context == null ? null : context.getDeadline();
+
+        if (deadline != null) {
+            deadline.check("sending the request");
+            applyDeadline(request, deadline);
+        }
+
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiter;
+        AdaptiveConcurrencyLimiter.Permit permit = limiter == null ? null : limiter.acquire(deadline);
+
+        request.setHeader("Accept-Encoding", "gzip, deflate");
+        stats.recordRequest();
+
+        RequestWatchdog.Watch watch = RequestWatchdog.shared().watch(request, context);
+
+        try {
+            HttpResponse response = httpClient.execute(request);
+
+            if (permit != null) {
+                permit.onResponse(response.getStatusLine().getStatusCode());
+            }
+
+            return new Response(request, response, this, watch, permit);
+        } catch (IOException e) {
+            watch.close();
+            boolean expired = deadline != null && deadline.isExpired();
+
+            if (permit != null) {
+                // Requests we aborted ourselves say nothing about how loaded Holodex is
+                if (!expired && !request.isAborted()) {
+                    permit.onFailure();
+                }
+
+                permit.release();
+            }
+
+            if (expired) {
+                throw new DeadlineExceededException("Deadline exceeded while sending the request");
+            }
+
+            throw new UnirestException(e);
+        } catch (RuntimeException e) {
+            watch.close();
+
+            if (permit != null) {
+                permit.release();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * @return The traffic counters of this transport.
+     */
+    public TransportStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return The pool response bodies are read into.
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    InflaterPool getInflaterPool() {
+        return inflaterPool;
+    }
+
+    private void applyDeadline(HttpUriRequest request, Deadline deadline) {
+        if (!(request instanceof HttpRequestBase)) {
+            return;
+        }
+
+        HttpRequestBase base = (HttpRequestBase) request;
+        RequestConfig config = base.getConfig() == null ? requestConfig : base.getConfig();
+        int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(1, deadline.remainingMillis()));
+
+        base.setConfig(RequestConfig.copy(config)
+                .setConnectionRequestTimeout(bound(config.getConnectionRequestTimeout(), remaining))
+                .setConnectTimeout(bound(config.getConnectTimeout(), remaining))
+                .setSocketTimeout(bound(config.getSocketTimeout(), remaining))
+                .build());
+    }
+
+    // HttpClient treats zero or negative timeouts as infinite
+    private static int bound(int timeout, int remaining) {
+        return timeout <= 0 ? remaining : Math.min(timeout, remaining);
+    }
+
+    private static RequestConfig requestConfig(HttpHost proxy, int connectTimeoutMillis, int socketTimeoutMillis) {
+        if (connectTimeoutMillis < 0 || socketTimeoutMillis < 0) {
+            throw new RuntimeException("Timeouts can't be negative");
+        }
+
+        return RequestConfig.custom()
+                .setProxy(proxy)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(socketTimeoutMillis)
+                .build();
+    }
+
+    // Requests given their own config no longer use the HttpClient's default one, proxy included
+    private static RequestConfig defaultRequestConfig(HttpClient httpClient) {
+        RequestConfig config = httpClient instanceof Configurable ? ((Configurable) httpClient).getConfig() : null;
+
+        return config == null ? RequestConfig.DEFAULT : config;
+    }
+
+    private static int millis(Object option, int defaultMillis) {
+        return option instanceof Number ? (int) Math.min(Integer.MAX_VALUE, ((Number) option).longValue()) : defaultMillis;
+    }
+
+    // Unirest always holds an HttpClient, and only records in this flag whether it's the user's
+    private static boolean isCustomUnirestClient() {
+        try {
+            Field customClientSet = Options.class.getDeclaredField("customClientSet");
+            customClientSet.setAccessible(true);
+
+            return customClientSet.getBoolean(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static HttpClient defaultHttpClient(RequestConfig requestConfig) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+
+        // Decompression is done by the transport so that it can pool Inflaters and count bytes
+        return HttpClients.custom()
+                .disableContentCompression()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+    }
+
+}
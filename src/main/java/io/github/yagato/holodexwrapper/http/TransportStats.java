@@ -0,0 +1,75 @@
+package io.github.yagato.holodexwrapper.http;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing the traffic of a {@link Transport}.
+ */
+public class TransportStats {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+
+    /**
+     * @return Number of requests sent.
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return Number of responses that arrived compressed.
+     */
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    /**
+     * @return Number of body bytes received from the network, compressed or not.
+     */
+    public long getWireBytes() {
+        return wireBytes.sum();
+    }
+
+    /**
+     * @return Number of body bytes after decompression, i.e. the size of the JSON that was read.
+     */
+    public long getDecodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    /**
+     * @return Number of bytes that compression saved.
+     */
+    public long getSavedBytes() {
+        return Math.max(0, getDecodedBytes() - getWireBytes());
+    }
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordCompressedResponse() {
+        compressedResponses.increment();
+    }
+
+    void recordWireBytes(long bytes) {
+        wireBytes.add(bytes);
+    }
+
+    void recordDecodedBytes(long bytes) {
+        decodedBytes.add(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "TransportStats{requests=" + getRequests()
+                + ", compressedResponses=" + getCompressedResponses()
+                + ", wireBytes=" + getWireBytes()
+                + ", decodedBytes=" + getDecodedBytes()
+                + "}";
+    }
+
+}
@@ -0,0 +1,44 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+/**
+ * Thrown when Holodex answers with an error status or with something other than JSON, e.g. an HTML
+ * error page from a proxy, instead of letting it fail deserialization.
+ */
+public class UnexpectedResponseException extends UnirestException {
+
+    private final int status;
+    private final String contentType;
+    private final String bodySnippet;
+
+    public UnexpectedResponseException(int status, String contentType, String bodySnippet) {
+        super("Unexpected response from Holodex: HTTP " + status + " (" + contentType + "): " + bodySnippet);
+
+        this.status = status;
+        this.contentType = contentType;
+        this.bodySnippet = bodySnippet;
+    }
+
+    /**
+     * @return The HTTP status code.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The Content-Type of the response, or null if it had none.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The beginning of the body.
+     */
+    public String getBodySnippet() {
+        return bodySnippet;
+    }
+
+}
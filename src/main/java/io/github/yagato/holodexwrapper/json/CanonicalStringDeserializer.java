@@ -0,0 +1,52 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Deserializes low-cardinality string fields (status, type, org, language, channel IDs...) through
+ * the shared {@link StringPool}, so large result sets share one instance per distinct value.
+ */
+public class CanonicalStringDeserializer extends StdScalarDeserializer<String> {
+
+    public CanonicalStringDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return read(parser, context);
+    }
+
+    /**
+     * Reads the current token as a pooled string, for deserializers that don't go through this one.
+     *
+     * @param parser The parser, positioned on the value.
+     * @param context The deserialization context.
+     * @return The pooled string, or null if the value is null.
+     * @throws IOException If the value can't be read as a string.
+     */
+    public static String read(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        if (token != JsonToken.VALUE_STRING) {
+            return StringDeserializer.instance.deserialize(parser, context);
+        }
+
+        return StringPool.shared().canonicalize(
+                parser.getTextCharacters(),
+                parser.getTextOffset(),
+                parser.getTextLength()
+        );
+    }
+
+}
@@ -0,0 +1,115 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import io.github.yagato.holodexwrapper.model.CompactChannel;
+
+import java.io.IOException;
+
+/**
+ * Decodes a {@link CompactChannel} field by field, setting timestamps and counters as primitives.
+ * See {@link CompactVideoDeserializer}.
+ */
+public class CompactChannelDeserializer extends StdDeserializer<CompactChannel> {
+
+    public CompactChannelDeserializer() {
+        super(CompactChannel.class);
+    }
+
+    @Override
+    public CompactChannel deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (CompactChannel) context.handleUnexpectedToken(CompactChannel.class, parser);
+        }
+
+        CompactChannel channel = new CompactChannel();
+
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            parser.nextToken();
+
+            switch (name) {
+                case "id":
+                    channel.setId(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "name":
+                    channel.setName(parser.getValueAsString());
+                    break;
+                case "english_name":
+                    channel.setEnglishName(parser.getValueAsString());
+                    break;
+                case "type":
+                    channel.setType(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "photo":
+                    channel.setPhoto(parser.getValueAsString());
+                    break;
+                case "org":
+                    channel.setOrg(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "suborg":
+                    channel.setSuborg(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "twitter":
+                    channel.setTwitter(parser.getValueAsString());
+                    break;
+                case "video_count":
+                    channel.setVideoCount(CounterDeserializer.readCounter(parser, context));
+                    break;
+                case "subscriber_count":
+                    channel.setSubscriberCount(CounterDeserializer.readCounter(parser, context));
+                    break;
+                case "view_count":
+                    channel.setViewCount(CounterDeserializer.readCounter(parser, context));
+                    break;
+                case "clip_count":
+                    channel.setClipCount(CounterDeserializer.readCounter(parser, context));
+                    break;
+                case "top_topics":
+                    channel.setTopTopics(CompactVideoDeserializer.readValue(parser, context, String[].class));
+                    break;
+                case "lang":
+                    channel.setLang(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "inactive":
+                    channel.setInactive(parser.getValueAsBoolean());
+                    break;
+                case "published_at":
+                    channel.setPublishedAt(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "comments_crawled_at":
+                    channel.setCommentsCrawledAt(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "updated_at":
+                    channel.setUpdatedAt(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "crawled_at":
+                    channel.setCrawledAt(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "created_at":
+                    channel.setCreatedAt(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "yt_handle":
+                    channel.setYtHandle(CompactVideoDeserializer.readValue(parser, context, String[].class));
+                    break;
+                case "twitch":
+                    channel.setTwitch(parser.getValueAsString());
+                    break;
+                case "group":
+                    channel.setGroup(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return channel;
+    }
+
+}
@@ -0,0 +1,132 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import io.github.yagato.holodexwrapper.model.CompactChannel;
+import io.github.yagato.holodexwrapper.model.CompactVideo;
+
+import java.io.IOException;
+
+/**
+ * Decodes a {@link CompactVideo} field by field, setting timestamps and counters as primitives.
+ *
+ * <br><br>
+ *
+ * A bean deserializer would box every timestamp through {@link EpochMillisDeserializer}, one
+ * {@link Long} per field per video, which is what the compact models are meant to avoid on large
+ * working sets. Unknown fields are skipped.
+ */
+public class CompactVideoDeserializer extends StdDeserializer<CompactVideo> {
+
+    public CompactVideoDeserializer() {
+        super(CompactVideo.class);
+    }
+
+    @Override
+    public CompactVideo deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (CompactVideo) context.handleUnexpectedToken(CompactVideo.class, parser);
+        }
+
+        CompactVideo video = new CompactVideo();
+
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            parser.nextToken();
+
+            switch (name) {
+                case "id":
+                    video.setId(parser.getValueAsString());
+                    break;
+                case "lang":
+                    video.setLanguage(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "title":
+                    video.setTitle(parser.getValueAsString());
+                    break;
+                case "type":
+                    video.setType(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "topic_id":
+                    video.setTopicId(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "published_at":
+                    video.setPublishedAt(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "available_at":
+                    video.setAvailableAt(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "duration":
+                    video.setDuration(parser.getValueAsInt());
+                    break;
+                case "status":
+                    video.setStatus(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "start_scheduled":
+                    video.setStartScheduled(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "start_actual":
+                    video.setStartActual(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "end_actual":
+                    video.setEndActual(EpochMillisDeserializer.readEpochMillis(parser, context));
+                    break;
+                case "live_viewers":
+                    video.setLiveViewers(parser.getValueAsInt());
+                    break;
+                case "recent_live_tls":
+                    video.setRecentLiveTranslators(readValue(parser, context, String[].class));
+                    break;
+                case "description":
+                    video.setDescription(parser.getValueAsString());
+                    break;
+                case "songcount":
+                    video.setSongCount(parser.getValueAsInt());
+                    break;
+                case "channel_id":
+                    video.setChannelId(CanonicalStringDeserializer.read(parser, context));
+                    break;
+                case "channel":
+                    video.setChannel(readValue(parser, context, CompactChannel.class));
+                    break;
+                case "mentions":
+                    video.setMentions(readValue(parser, context, CompactChannel[].class));
+                    break;
+                case "jp_name":
+                    video.setJapaneseName(parser.getValueAsString());
+                    break;
+                case "link":
+                    video.setLink(parser.getValueAsString());
+                    break;
+                case "thumbnail":
+                    video.setThumbnail(parser.getValueAsString());
+                    break;
+                case "placeholderType":
+                    video.setPlaceholderType(parser.getValueAsString());
+                    break;
+                case "certainty":
+                    video.setCertainty(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return video;
+    }
+
+    static <T> T readValue(JsonParser parser, DeserializationContext context, Class<T> type) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        return context.readValue(parser, type);
+    }
+
+}
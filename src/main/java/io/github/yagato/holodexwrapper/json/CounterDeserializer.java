@@ -0,0 +1,76 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Deserializes the counters Holodex sends as strings (e.g. {@code "video_count": "1234"}) into a
+ * long, reading the digits straight from the parser's character buffer.
+ */
+public class CounterDeserializer extends StdScalarDeserializer<Long> {
+
+    public CounterDeserializer() {
+        super(Long.TYPE);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return readCounter(parser, context);
+    }
+
+    /**
+     * Reads the current counter token as a primitive, for deserializers that set it without boxing.
+     *
+     * @param parser The parser, positioned on the value.
+     * @param context The deserialization context.
+     * @return The counter, or 0 if it's null.
+     * @throws IOException If the value isn't a counter.
+     */
+    public static long readCounter(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+
+        if (token == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+
+        if (token != JsonToken.VALUE_STRING) {
+            return (Long) context.handleUnexpectedToken(Long.TYPE, parser);
+        }
+
+        char[] buffer = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        long value = 0;
+
+        // Up to 18 digits always fit in a long
+        if (length > 18) {
+            return (Long) context.handleWeirdStringValue(Long.TYPE, parser.getText(), "counter out of range");
+        }
+
+        for (int i = offset; i < offset + length; i++) {
+            char c = buffer[i];
+
+            if (c < '0' || c > '9') {
+                return (Long) context.handleWeirdStringValue(Long.TYPE, parser.getText(), "not a counter");
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext context) {
+        return 0L;
+    }
+
+}
@@ -0,0 +1,76 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Deserializes a Holodex timestamp straight from the parser's character buffer into epoch
+ * milliseconds, without creating a String or an OffsetDateTime.
+ *
+ * <br><br>
+ *
+ * Numbers are accepted as-is so that compact models can be serialized and read back.
+ *
+ * <br><br>
+ *
+ * Jackson boxes the values of scalar deserializers, so the compact models are decoded by
+ * {@link CompactVideoDeserializer} and {@link CompactChannelDeserializer}, which call
+ * {@link #readEpochMillis} and set the primitive fields directly.
+ */
+public class EpochMillisDeserializer extends StdScalarDeserializer<Long> {
+
+    public EpochMillisDeserializer() {
+        super(Long.TYPE);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return readEpochMillis(parser, context);
+    }
+
+    /**
+     * Reads the current timestamp token as a primitive, for deserializers that set it without boxing.
+     *
+     * @param parser The parser, positioned on the value.
+     * @param context The deserialization context.
+     * @return The timestamp in epoch milliseconds, or {@link Timestamps#MISSING} if it's null or empty.
+     * @throws IOException If the value isn't a timestamp.
+     */
+    public static long readEpochMillis(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+
+        if (token == JsonToken.VALUE_NULL) {
+            return Timestamps.MISSING;
+        }
+
+        if (token != JsonToken.VALUE_STRING) {
+            return (Long) context.handleUnexpectedToken(Long.TYPE, parser);
+        }
+
+        int length = parser.getTextLength();
+
+        if (length == 0) {
+            return Timestamps.MISSING;
+        }
+
+        try {
+            return Timestamps.parseEpochMillis(parser.getTextCharacters(), parser.getTextOffset(), length);
+        } catch (IllegalArgumentException e) {
+            return (Long) context.handleWeirdStringValue(Long.TYPE, parser.getText(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext context) {
+        return Timestamps.MISSING;
+    }
+
+}
@@ -0,0 +1,182 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Pull-style iterator over the elements of a JSON array that's still being received.
+ *
+ * <br><br>
+ *
+ * Each element is deserialized only when it's requested, so nothing beyond the current element is
+ * held in memory and the network is only read as fast as the caller consumes. The underlying
+ * response is closed once the last element has been read, when an error occurs, or when
+ * {@link #close()} is called. After the last element, the rest of the body is read so that the
+ * connection can be reused; closing early aborts the rest of the transfer instead.
+ *
+ * <br><br>
+ *
+ * {@link #hasNext()} and {@link #next()} throw an unchecked
+ * {@link com.fasterxml.jackson.databind.RuntimeJsonMappingException} on malformed JSON, and
+ * {@link #hasNext()} an {@link UncheckedIOException} if the rest of the body can't be read.
+ *
+ * <br><br>
+ *
+ * Like any iterator, this one must be used by one thread at a time, except for {@link #abort()}.
+ */
+public class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    private final MappingIterator<T> elements;
+    private final Closeable source;
+    private final Runnable aborter;
+    private final UnaryOperator<T> postProcessor;
+    private boolean closed;
+
+    /**
+     * @param elements Jackson iterator over the array elements.
+     * @param source The resource the JSON is read from, closed along with this iterator.
+     * @param aborter Interrupts the transfer of the JSON; must be safe to call from any thread.
+     * @param postProcessor Applied to every element before it's returned.
+     */
+    public JsonArrayIterator(MappingIterator<T> elements,
+                             Closeable source,
+                             Runnable aborter,
+                             UnaryOperator<T> postProcessor) {
+        this.elements = elements;
+        this.source = source;
+        this.aborter = aborter;
+        this.postProcessor = postProcessor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+
+        try {
+            boolean hasNext = elements.hasNext();
+
+            if (!hasNext) {
+                readToEnd();
+                close();
+            }
+
+            return hasNext;
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            return postProcessor.apply(elements.next());
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Same as {@link #hasNext()}, but reports malformed JSON with a checked exception.
+     *
+     * @return Whether there's another element.
+     * @throws IOException If the JSON is malformed or can't be read.
+     */
+    public boolean hasNextValue() throws IOException {
+        if (closed) {
+            return false;
+        }
+
+        try {
+            boolean hasNext = elements.hasNextValue();
+
+            if (!hasNext) {
+                readToEnd();
+                close();
+            }
+
+            return hasNext;
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Same as {@link #next()}, but reports malformed JSON with a checked exception.
+     *
+     * @return The next element.
+     * @throws IOException If the JSON is malformed or can't be read.
+     */
+    public T nextValue() throws IOException {
+        if (!hasNextValue()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            return postProcessor.apply(elements.nextValue());
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Interrupts the transfer, making the pending or next read fail. Unlike the other methods, this
+     * one may be called from any thread, e.g. to cancel a consumer blocked on {@link #hasNext()}.
+     * The iterator must still be closed by the thread using it.
+     */
+    public void abort() {
+        aborter.run();
+    }
+
+    // Past the end of the array, only whitespace and the compression trailer are left
+    private void readToEnd() throws IOException {
+        JsonParser parser = elements.getParser();
+
+        if (parser.nextToken() != null) {
+            throw new JsonParseException(parser, "Unexpected content after the array");
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        // The source goes first, so that an unfinished transfer is aborted rather than drained
+        try {
+            source.close();
+        } catch (IOException ignored) {
+            // The parser is closed below regardless
+        }
+
+        try {
+            elements.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+}
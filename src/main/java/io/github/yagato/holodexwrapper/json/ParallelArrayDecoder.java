@@ -0,0 +1,251 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Decodes large top-level JSON arrays in parallel.
+ *
+ * <br><br>
+ *
+ * A single structural pass over the raw UTF-8 bytes finds where each element starts and ends
+ * (only brackets, braces, commas and string quotes are looked at), then the elements are
+ * deserialized on a ForkJoinPool. The returned list keeps the original order. Bodies smaller than
+ * the threshold, or that aren't arrays, are decoded on the calling thread.
+ */
+public class ParallelArrayDecoder {
+
+    /**
+     * Default size, in bytes, from which a body is decoded in parallel.
+     */
+    public static final int DEFAULT_MIN_PARALLEL_BYTES = 256 * 1024;
+
+    // Elements are decoded sequentially once a task covers fewer bytes than this
+    private static final int MIN_TASK_BYTES = 32 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool pool;
+    private final int minParallelBytes;
+
+    /**
+     * @param objectMapper The mapper used to deserialize each element.
+     * @param pool The pool the elements are deserialized on.
+     * @param minParallelBytes Size, in bytes, from which a body is decoded in parallel.
+     */
+    public ParallelArrayDecoder(ObjectMapper objectMapper, ForkJoinPool pool, int minParallelBytes) {
+        this.objectMapper = objectMapper;
+        this.pool = pool;
+        this.minParallelBytes = minParallelBytes;
+    }
+
+    /**
+     * Decodes a JSON array.
+     *
+     * @param body Buffer holding the UTF-8 encoded JSON.
+     * @param offset Index of the first byte of the JSON.
+     * @param length Number of bytes of the JSON.
+     * @param listType A collection type, e.g. {@code List<Video>}.
+     * @return The decoded list, in the same order as in the JSON.
+     * @throws IOException If the JSON is malformed or doesn't match the type.
+     */
+    public <T> List<T> decode(byte[] body, int offset, int length, JavaType listType) throws IOException {
+        int[] bounds = length < minParallelBytes ? null : scanElements(body, offset, length);
+
+        if (bounds == null) {
+            return objectMapper.readValue(body, offset, length, listType);
+        }
+
+        int count = bounds.length / 2;
+        Object[] results = new Object[count];
+        ObjectReader reader = objectMapper.readerFor(listType.getContentType());
+
+        if (count > 0) {
+            try {
+                pool.invoke(new DecodeTask(reader, body, bounds, results, 0, count));
+            } catch (RuntimeException e) {
+                // The pool may rethrow a copy of the task's exception, wrapping the original one
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) cause).getCause();
+                    }
+                }
+
+                throw e;
+            }
+        }
+
+        List<T> list = new ArrayList<>(count);
+
+        for (Object result : results) {
+            @SuppressWarnings("unchecked")
+            T element = (T) result;
+            list.add(element);
+        }
+
+        return list;
+    }
+
+    /**
+     * Finds the elements of a top-level JSON array.
+     *
+     * @param body Buffer holding the UTF-8 encoded JSON.
+     * @param offset Index of the first byte of the JSON.
+     * @param length Number of bytes of the JSON.
+     * @return Start (inclusive) and end (exclusive) index of each element, one pair after the other,
+     * or null if the JSON isn't a well-formed array.
+     */
+    @SuppressWarnings("fallthrough")
+    static int[] scanElements(byte[] body, int offset, int length) {
+        int end = offset + length;
+        int i = skipWhitespace(body, offset, end);
+
+        if (i >= end || body[i] != '[') {
+            return null;
+        }
+
+        int[] bounds = new int[64];
+        int count = 0;
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+
+        for (i = i + 1; i < end; i++) {
+            byte b = body[i];
+
+            if (inString) {
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            if (start < 0 && !isWhitespace(b)) {
+                if (b == ']' && count == 0) {
+                    return skipWhitespace(body, i + 1, end) == end ? new int[0] : null;
+                }
+
+                start = i;
+            }
+
+            switch (b) {
+                case '"':
+                    inString = true;
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth > 0) {
+                        depth--;
+                        break;
+                    }
+                    // fall through: closing bracket of the top-level array
+                case ',':
+                    if (depth > 0) {
+                        break;
+                    }
+
+                    if (start < 0 || start == i) {
+                        return null;
+                    }
+
+                    if (count + 2 > bounds.length) {
+                        int[] grown = new int[bounds.length * 2];
+                        System.arraycopy(bounds, 0, grown, 0, count);
+                        bounds = grown;
+                    }
+
+                    bounds[count++] = start;
+                    bounds[count++] = i;
+                    start = -1;
+
+                    if (b == ']') {
+                        if (skipWhitespace(body, i + 1, end) != end) {
+                            return null;
+                        }
+
+                        int[] trimmed = new int[count];
+                        System.arraycopy(bounds, 0, trimmed, 0, count);
+                        return trimmed;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return null;
+    }
+
+    private static int skipWhitespace(byte[] body, int from, int end) {
+        int i = from;
+
+        while (i < end && isWhitespace(body[i])) {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static class DecodeTask extends RecursiveAction {
+
+        private final ObjectReader reader;
+        private final byte[] body;
+        private final int[] bounds;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+
+        DecodeTask(ObjectReader reader, byte[] body, int[] bounds, Object[] results, int from, int to) {
+            this.reader = reader;
+            this.body = body;
+            this.bounds = bounds;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int bytes = bounds[2 * to - 1] - bounds[2 * from];
+
+            if (to - from > 1 && bytes > MIN_TASK_BYTES) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new DecodeTask(reader, body, bounds, results, from, middle),
+                        new DecodeTask(reader, body, bounds, results, middle, to)
+                );
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                int start = bounds[2 * i];
+                int end = bounds[2 * i + 1];
+
+                try {
+                    results[i] = reader.readValue(body, start, end - start);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+package io.github.yagato.holodexwrapper.json;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, thread-safe pool that maps equal strings to a single shared instance.
+ *
+ * <br><br>
+ *
+ * The pool is a fixed-size table: lookups hash the characters straight from the parser buffer,
+ * so a hit allocates nothing, and a colliding value simply replaces the previous one. Memory use is
+ * therefore capped by the capacity, no matter how many distinct values go through the pool.
+ * Strings longer than {@link #MAX_LENGTH} are never pooled.
+ */
+public final class StringPool {
+
+    /**
+     * Longest string that will be pooled. Holodex IDs and enumerated values are far shorter.
+     */
+    public static final int MAX_LENGTH = 64;
+
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private static volatile StringPool shared = new StringPool(DEFAULT_CAPACITY);
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+
+    /**
+     * @param capacity Maximum number of pooled strings, rounded up to a power of two.
+     */
+    public StringPool(int capacity) {
+        if (capacity <= 0) {
+            throw new RuntimeException("capacity must be positive");
+        }
+
+        int size = Integer.highestOneBit(capacity);
+
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return The pool used by the JSON layer when decoding.
+     */
+    public static StringPool shared() {
+        return shared;
+    }
+
+    /**
+     * Replaces the pool used by the JSON layer when decoding.
+     *
+     * @param pool The new pool.
+     */
+    public static void setShared(StringPool pool) {
+        if (pool == null) {
+            throw new RuntimeException("pool can't be null");
+        }
+
+        shared = pool;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given region of a character buffer, creating and
+     * pooling it if needed.
+     *
+     * @param buffer The buffer holding the characters.
+     * @param offset Index of the first character.
+     * @param length Number of characters.
+     * @return A String equal to the region.
+     */
+    public String canonicalize(char[] buffer, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(buffer, offset, length);
+        }
+
+        int hash = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+
+        int index = spread(hash) & mask;
+        String pooled = slots.get(index);
+
+        if (pooled != null && matches(pooled, buffer, offset, length)) {
+            return pooled;
+        }
+
+        String created = new String(buffer, offset, length);
+        slots.lazySet(index, created);
+
+        return created;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given string, pooling it if needed.
+     *
+     * @param value A string, possibly null.
+     * @return A String equal to the given one, or null.
+     */
+    public String canonicalize(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+
+        int index = spread(value.hashCode()) & mask;
+        String pooled = slots.get(index);
+
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+
+        slots.lazySet(index, value);
+
+        return value;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String pooled, char[] buffer, int offset, int length) {
+        if (pooled.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (pooled.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,224 @@
+package io.github.yagato.holodexwrapper.json;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Allocation-free parser for the timestamps returned by Holodex
+ * ({@code yyyy-MM-dd'T'HH:mm:ss.SSSX}) into epoch milliseconds.
+ *
+ * <br><br>
+ *
+ * The fractional part is optional and may have any number of digits (only milliseconds are kept),
+ * and the offset may be {@code Z}, {@code +HH}, {@code +HHmm} or {@code +HH:mm}.
+ */
+public final class Timestamps {
+
+    /**
+     * Value used by the compact models for a timestamp that is absent or null. It's the smallest long
+     * rather than 0, so that it can't be mistaken for 1970-01-01T00:00:00Z.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final int MIN_LENGTH = "yyyy-MM-ddTHH:mm:ssZ".length();
+
+    private Timestamps() {
+    }
+
+    /**
+     * Parses a timestamp into epoch milliseconds.
+     *
+     * @param text A timestamp in the Holodex format.
+     * @return The number of milliseconds since 1970-01-01T00:00:00Z.
+     * @throws IllegalArgumentException If the text isn't a valid timestamp.
+     */
+    public static long parseEpochMillis(String text) {
+        return parseEpochMillis(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * Parses a timestamp stored in a region of a character buffer into epoch milliseconds
+     * without allocating any intermediate object.
+     *
+     * @param buffer The buffer holding the timestamp.
+     * @param offset Index of the first character of the timestamp.
+     * @param length Number of characters of the timestamp.
+     * @return The number of milliseconds since 1970-01-01T00:00:00Z.
+     * @throws IllegalArgumentException If the region isn't a valid timestamp.
+     */
+    public static long parseEpochMillis(char[] buffer, int offset, int length) {
+        if (length < MIN_LENGTH) {
+            throw invalid(buffer, offset, length);
+        }
+
+        int end = offset + length;
+
+        int year = digits(buffer, offset, 4);
+        expect(buffer, offset + 4, '-');
+        int month = digits(buffer, offset + 5, 2);
+        expect(buffer, offset + 7, '-');
+        int day = digits(buffer, offset + 8, 2);
+
+        char separator = buffer[offset + 10];
+        if (separator != 'T' && separator != 't' && separator != ' ') {
+            throw invalid(buffer, offset, length);
+        }
+
+        int hour = digits(buffer, offset + 11, 2);
+        expect(buffer, offset + 13, ':');
+        int minute = digits(buffer, offset + 14, 2);
+        expect(buffer, offset + 16, ':');
+        int second = digits(buffer, offset + 17, 2);
+
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 60) {
+            throw invalid(buffer, offset, length);
+        }
+
+        int i = offset + 19;
+        int millis = 0;
+
+        if (i < end && buffer[i] == '.') {
+            i++;
+            int scale = 100;
+
+            while (i < end && isDigit(buffer[i])) {
+                millis += (buffer[i] - '0') * scale;
+                scale /= 10;
+                i++;
+            }
+        }
+
+        if (i >= end) {
+            throw invalid(buffer, offset, length);
+        }
+
+        int offsetSeconds = 0;
+        char zone = buffer[i];
+
+        if (zone == 'Z' || zone == 'z') {
+            i++;
+        } else if (zone == '+' || zone == '-') {
+            if (i + 3 > end) {
+                throw invalid(buffer, offset, length);
+            }
+
+            int offsetHours = digits(buffer, i + 1, 2);
+            int offsetMinutes = 0;
+            i += 3;
+
+            if (i < end && buffer[i] == ':') {
+                i++;
+
+                // A colon must be followed by the minutes
+                if (i + 2 > end) {
+                    throw invalid(buffer, offset, length);
+                }
+            }
+
+            if (i + 2 <= end) {
+                offsetMinutes = digits(buffer, i, 2);
+                i += 2;
+            }
+
+            offsetSeconds = offsetHours * 3600 + offsetMinutes * 60;
+
+            if (zone == '-') {
+                offsetSeconds = -offsetSeconds;
+            }
+        }
+
+        if (i != end) {
+            throw invalid(buffer, offset, length);
+        }
+
+        long epochSeconds = daysFromCivil(year, month, day) * 86400L
+                + hour * 3600L
+                + minute * 60L
+                + second
+                - offsetSeconds;
+
+        return epochSeconds * 1000L + millis;
+    }
+
+    /**
+     * Converts epoch milliseconds produced by this class back into an OffsetDateTime in UTC.
+     *
+     * @param epochMillis Milliseconds since 1970-01-01T00:00:00Z, or {@link #MISSING}.
+     * @return The matching OffsetDateTime, or null if the timestamp is missing.
+     */
+    public static OffsetDateTime toOffsetDateTime(long epochMillis) {
+        if (epochMillis == MISSING) {
+            return null;
+        }
+
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Converts an OffsetDateTime into epoch milliseconds.
+     *
+     * @param dateTime An OffsetDateTime, possibly null.
+     * @return The matching epoch milliseconds, or {@link #MISSING} if the OffsetDateTime is null.
+     */
+    public static long toEpochMillis(OffsetDateTime dateTime) {
+        return dateTime == null ? MISSING : dateTime.toInstant().toEpochMilli();
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar (H. Hinnant's days_from_civil).
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int digits(char[] buffer, int offset, int count) {
+        int value = 0;
+
+        for (int i = offset; i < offset + count; i++) {
+            char c = buffer[i];
+
+            if (!isDigit(c)) {
+                throw new IllegalArgumentException("Expected a digit at index " + i);
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    private static void expect(char[] buffer, int index, char expected) {
+        if (buffer[index] != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at index " + index);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException invalid(char[] buffer, int offset, int length) {
+        return new IllegalArgumentException("Invalid timestamp: " + new String(buffer, offset, length));
+    }
+
+}
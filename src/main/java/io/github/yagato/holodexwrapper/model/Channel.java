@@ -3,6 +3,8 @@ package io.github.yagato.holodexwrapper.model;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.github.yagato.holodexwrapper.json.CanonicalStringDeserializer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,6 +19,7 @@ import java.util.List;
 public class Channel {
 
     @JsonProperty("id")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String id;
 
     @JsonProperty("name")
@@ -26,15 +29,18 @@ public class Channel {
     private String englishName;
 
     @JsonProperty("type")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String type;
 
     @JsonProperty("photo")
     private String photo;
 
     @JsonProperty("org")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String org;
 
     @JsonProperty("suborg")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String suborg;
 
     @JsonProperty("banner")
@@ -66,6 +72,7 @@ public class Channel {
     private List<String> topTopics;
 
     @JsonProperty("lang")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String lang;
 
     @JsonProperty("published_at")
@@ -103,6 +110,7 @@ public class Channel {
     private List<String> ytNameHistory;
 
     @JsonProperty("group")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String group;
 
 }
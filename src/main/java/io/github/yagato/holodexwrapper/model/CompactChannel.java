@@ -0,0 +1,98 @@
+package io.github.yagato.holodexwrapper.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.github.yagato.holodexwrapper.json.CompactChannelDeserializer;
+import io.github.yagato.holodexwrapper.json.Timestamps;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Memory-friendly variant of {@link Channel}.
+ *
+ * <br><br>
+ *
+ * Timestamps are stored as epoch milliseconds ({@link Timestamps#MISSING}, the smallest long, when
+ * missing), counters as longs and lists as exactly-sized arrays.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonDeserialize(using = CompactChannelDeserializer.class)
+public class CompactChannel {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("english_name")
+    private String englishName;
+
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("photo")
+    private String photo;
+
+    @JsonProperty("org")
+    private String org;
+
+    @JsonProperty("suborg")
+    private String suborg;
+
+    @JsonProperty("twitter")
+    private String twitter;
+
+    @JsonProperty("video_count")
+    private long videoCount;
+
+    @JsonProperty("subscriber_count")
+    private long subscriberCount;
+
+    @JsonProperty("view_count")
+    private long viewCount;
+
+    @JsonProperty("clip_count")
+    private long clipCount;
+
+    @JsonProperty("top_topics")
+    private String[] topTopics;
+
+    @JsonProperty("lang")
+    private String lang;
+
+    @JsonProperty("inactive")
+    private boolean inactive;
+
+    @JsonProperty("published_at")
+    private long publishedAt = Timestamps.MISSING;
+
+    @JsonProperty("comments_crawled_at")
+    private long commentsCrawledAt = Timestamps.MISSING;
+
+    @JsonProperty("updated_at")
+    private long updatedAt = Timestamps.MISSING;
+
+    @JsonProperty("crawled_at")
+    private long crawledAt = Timestamps.MISSING;
+
+    @JsonProperty("created_at")
+    private long createdAt = Timestamps.MISSING;
+
+    @JsonProperty("yt_handle")
+    private String[] ytHandle;
+
+    @JsonProperty("twitch")
+    private String twitch;
+
+    @JsonProperty("group")
+    private String group;
+
+}
@@ -0,0 +1,111 @@
+package io.github.yagato.holodexwrapper.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.github.yagato.holodexwrapper.json.CompactVideoDeserializer;
+import io.github.yagato.holodexwrapper.json.Timestamps;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Comparator;
+
+/**
+ * Memory-friendly variant of {@link Video}, meant for large working sets that are mostly sorted
+ * and filtered by time.
+ *
+ * <br><br>
+ *
+ * Timestamps are stored as epoch milliseconds ({@link Timestamps#MISSING}, the smallest long, when
+ * missing) and lists as exactly-sized arrays. The heavy related lists (clips, sources, refers,
+ * simulcasts, songs, comments) and credits are not kept; use {@link Video} when you need them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonDeserialize(using = CompactVideoDeserializer.class)
+public class CompactVideo {
+
+    public static final Comparator<CompactVideo> BY_AVAILABLE_AT =
+            Comparator.comparingLong(CompactVideo::getAvailableAt);
+
+    public static final Comparator<CompactVideo> BY_PUBLISHED_AT =
+            Comparator.comparingLong(CompactVideo::getPublishedAt);
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("lang")
+    private String language;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("topic_id")
+    private String topicId;
+
+    @JsonProperty("published_at")
+    private long publishedAt = Timestamps.MISSING;
+
+    @JsonProperty("available_at")
+    private long availableAt = Timestamps.MISSING;
+
+    @JsonProperty("duration")
+    private int duration;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("start_scheduled")
+    private long startScheduled = Timestamps.MISSING;
+
+    @JsonProperty("start_actual")
+    private long startActual = Timestamps.MISSING;
+
+    @JsonProperty("end_actual")
+    private long endActual = Timestamps.MISSING;
+
+    @JsonProperty("live_viewers")
+    private int liveViewers;
+
+    @JsonProperty("recent_live_tls")
+    private String[] recentLiveTranslators;
+
+    @JsonProperty("description")
+    private String description;
+
+    @JsonProperty("songcount")
+    private int songCount;
+
+    @JsonProperty("channel_id")
+    private String channelId;
+
+    @JsonProperty("channel")
+    private CompactChannel channel;
+
+    @JsonProperty("mentions")
+    private CompactChannel[] mentions;
+
+    @JsonProperty("jp_name")
+    private String japaneseName;
+
+    @JsonProperty("link")
+    private String link;
+
+    @JsonProperty("thumbnail")
+    private String thumbnail;
+
+    @JsonProperty("placeholderType")
+    private String placeholderType;
+
+    @JsonProperty("certainty")
+    private String certainty;
+
+}
@@ -30,4 +30,13 @@ public class GetQueryParameters {
     OffsetDateTime to;
     String[] channelIds;
 
+    /**
+     * @return A shallow copy of these parameters, e.g. to vary the offset of a query.
+     */
+    public GetQueryParameters copy() {
+        return new GetQueryParameters(channelId, videoId, languages, limit, maxUpcomingHours, mentionedChannelId,
+                offset, sortOrder, organization, sortByField, topic, channelType, extraInfo, status, videoType,
+                from, to, channelIds);
+    }
+
 }
@@ -41,4 +41,12 @@ public class PostQueryParameters {
     @JsonProperty("limit")
     private Integer limit = 30;
 
+    /**
+     * @return A shallow copy of these parameters, e.g. to vary the offset of a query.
+     */
+    public PostQueryParameters copy() {
+        return new PostQueryParameters(sort, language, videoTypes, conditions, comment, topics, channelIds,
+                organizations, offset, limit);
+    }
+
 }
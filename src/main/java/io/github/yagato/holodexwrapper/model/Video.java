@@ -3,6 +3,8 @@ package io.github.yagato.holodexwrapper.model;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.github.yagato.holodexwrapper.json.CanonicalStringDeserializer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -20,15 +22,18 @@ public class Video {
     private String id;
 
     @JsonProperty("lang")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String language;
 
     @JsonProperty("title")
     private String title;
 
     @JsonProperty("type")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String type;
 
     @JsonProperty("topic_id")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String topicId;
 
     @JsonProperty("published_at")
@@ -43,6 +48,7 @@ public class Video {
     private int duration;
 
     @JsonProperty("status")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String status;
 
     @JsonProperty("start_scheduled")
@@ -73,6 +79,7 @@ public class Video {
     private int songCount;
 
     @JsonProperty("channel_id")
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String channelId;
 
     @JsonProperty("channel")
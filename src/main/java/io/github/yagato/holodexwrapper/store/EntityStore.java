@@ -0,0 +1,289 @@
+package io.github.yagato.holodexwrapper.store;
+
+import io.github.yagato.holodexwrapper.model.Channel;
+import io.github.yagato.holodexwrapper.model.Video;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identity map that keeps a single canonical Channel and Video instance per ID.
+ *
+ * <br><br>
+ *
+ * Every decoded entity is resolved against the store: the first instance seen for an ID becomes
+ * the canonical one, and the fields of later instances are merged into it. For channels, a later
+ * instance only overwrites existing fields when it isn't older than the canonical one (compared
+ * with updatedAt, then crawledAt); otherwise it only fills in fields that are still missing.
+ * Videos have no such timestamps, so later non-null fields always win.
+ *
+ * <br><br>
+ *
+ * Merging happens in place, so everyone holding the canonical instance sees the freshest data. A
+ * merge holds the lock of the canonical instance; readers that need a consistent view of several
+ * fields, like a serializer, should hold it as well:
+ * <pre>{@code
+ * synchronized (channel) {
+ *     bytes = objectMapper.writeValueAsBytes(channel);
+ * }
+ * }</pre>
+ * Don't call back into the store while holding that lock.
+ */
+public class EntityStore {
+
+    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Video> videos = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves a channel to its canonical instance, merging the given one into it.
+     *
+     * @param channel A decoded channel, possibly null.
+     * @return The canonical channel with the same ID, or the given channel if it has no ID.
+     */
+    public Channel resolve(Channel channel) {
+        if (channel == null || channel.getId() == null) {
+            return channel;
+        }
+
+        return channels.merge(channel.getId(), channel, (current, fresh) -> {
+            synchronized (current) {
+                merge(current, fresh);
+            }
+
+            return current;
+        });
+    }
+
+    /**
+     * Resolves a video to its canonical instance, merging the given one into it. The video's channel
+     * and mentions are resolved as well.
+     *
+     * @param video A decoded video, possibly null.
+     * @return The canonical video with the same ID, or the given video if it has no ID.
+     */
+    public Video resolve(Video video) {
+        if (video == null) {
+            return null;
+        }
+
+        video.setChannel(resolve(video.getChannel()));
+        video.setMentions(resolveChannels(video.getMentions()));
+
+        if (video.getId() == null) {
+            return video;
+        }
+
+        return videos.merge(video.getId(), video, (current, fresh) -> {
+            synchronized (current) {
+                merge(current, fresh);
+            }
+
+            return current;
+        });
+    }
+
+    /**
+     * @param channelId A channel ID.
+     * @return The canonical channel, or null if it's not in the store.
+     */
+    public Channel getChannel(String channelId) {
+        return channels.get(channelId);
+    }
+
+    /**
+     * @param videoId A video ID.
+     * @return The canonical video, or null if it's not in the store.
+     */
+    public Video getVideo(String videoId) {
+        return videos.get(videoId);
+    }
+
+    /**
+     * @return A live, unmodifiable view of the canonical channels.
+     */
+    public Collection<Channel> getChannels() {
+        return Collections.unmodifiableCollection(channels.values());
+    }
+
+    /**
+     * @return A live, unmodifiable view of the canonical videos.
+     */
+    public Collection<Video> getVideos() {
+        return Collections.unmodifiableCollection(videos.values());
+    }
+
+    /**
+     * @return Number of distinct channels in the store.
+     */
+    public int channelCount() {
+        return channels.size();
+    }
+
+    /**
+     * @return Number of distinct videos in the store.
+     */
+    public int videoCount() {
+        return videos.size();
+    }
+
+    /**
+     * Removes a video from the store, e.g. once it's no longer tracked.
+     *
+     * @param videoId A video ID.
+     */
+    public void removeVideo(String videoId) {
+        videos.remove(videoId);
+    }
+
+    /**
+     * Removes a channel from the store.
+     *
+     * @param channelId A channel ID.
+     */
+    public void removeChannel(String channelId) {
+        channels.remove(channelId);
+    }
+
+    /**
+     * Removes every entity from the store.
+     */
+    public void clear() {
+        channels.clear();
+        videos.clear();
+    }
+
+    // Returns a new list, the given one may be shared with the caller
+    private List<Channel> resolveChannels(List<Channel> channelList) {
+        if (channelList == null) {
+            return null;
+        }
+
+        List<Channel> resolved = new ArrayList<>(channelList.size());
+
+        for (Channel channel : channelList) {
+            resolved.add(resolve(channel));
+        }
+
+        return resolved;
+    }
+
+    private static void merge(Channel current, Channel fresh) {
+        if (current == fresh) {
+            return;
+        }
+
+        boolean overwrite = !isOlder(fresh, current);
+
+        current.setName(pick(current.getName(), fresh.getName(), overwrite));
+        current.setEnglishName(pick(current.getEnglishName(), fresh.getEnglishName(), overwrite));
+        current.setType(pick(current.getType(), fresh.getType(), overwrite));
+        current.setPhoto(pick(current.getPhoto(), fresh.getPhoto(), overwrite));
+        current.setOrg(pick(current.getOrg(), fresh.getOrg(), overwrite));
+        current.setSuborg(pick(current.getSuborg(), fresh.getSuborg(), overwrite));
+        current.setBanner(pick(current.getBanner(), fresh.getBanner(), overwrite));
+        current.setThumbnail(pick(current.getThumbnail(), fresh.getThumbnail(), overwrite));
+        current.setTwitter(pick(current.getTwitter(), fresh.getTwitter(), overwrite));
+        current.setVideoCount(pick(current.getVideoCount(), fresh.getVideoCount(), overwrite));
+        current.setSubscriberCount(pick(current.getSubscriberCount(), fresh.getSubscriberCount(), overwrite));
+        current.setCommentsCrawledAt(pick(current.getCommentsCrawledAt(), fresh.getCommentsCrawledAt(), overwrite));
+        current.setViewCount(pick(current.getViewCount(), fresh.getViewCount(), overwrite));
+        current.setClipCount(pick(current.getClipCount(), fresh.getClipCount(), overwrite));
+        current.setTopTopics(pick(current.getTopTopics(), fresh.getTopTopics(), overwrite));
+        current.setLang(pick(current.getLang(), fresh.getLang(), overwrite));
+        current.setPublishedAt(pick(current.getPublishedAt(), fresh.getPublishedAt(), overwrite));
+        current.setDescription(pick(current.getDescription(), fresh.getDescription(), overwrite));
+        current.setUpdatedAt(pick(current.getUpdatedAt(), fresh.getUpdatedAt(), overwrite));
+        current.setYtUploadsId(pick(current.getYtUploadsId(), fresh.getYtUploadsId(), overwrite));
+        current.setCrawledAt(pick(current.getCrawledAt(), fresh.getCrawledAt(), overwrite));
+        current.setCreatedAt(pick(current.getCreatedAt(), fresh.getCreatedAt(), overwrite));
+        current.setYtHandle(pick(current.getYtHandle(), fresh.getYtHandle(), overwrite));
+        current.setTwitch(pick(current.getTwitch(), fresh.getTwitch(), overwrite));
+        current.setYtNameHistory(pick(current.getYtNameHistory(), fresh.getYtNameHistory(), overwrite));
+        current.setGroup(pick(current.getGroup(), fresh.getGroup(), overwrite));
+
+        // "inactive" is a primitive, so it's only trusted when it comes from a full channel object
+        if (overwrite && fresh.getUpdatedAt() != null) {
+            current.setInactive(fresh.isInactive());
+        }
+    }
+
+    private static void merge(Video current, Video fresh) {
+        if (current == fresh) {
+            return;
+        }
+
+        current.setLanguage(pick(current.getLanguage(), fresh.getLanguage(), true));
+        current.setTitle(pick(current.getTitle(), fresh.getTitle(), true));
+        current.setType(pick(current.getType(), fresh.getType(), true));
+        current.setTopicId(pick(current.getTopicId(), fresh.getTopicId(), true));
+        current.setPublishedAt(pick(current.getPublishedAt(), fresh.getPublishedAt(), true));
+        current.setAvailableAt(pick(current.getAvailableAt(), fresh.getAvailableAt(), true));
+        current.setStatus(pick(current.getStatus(), fresh.getStatus(), true));
+        current.setStartScheduled(pick(current.getStartScheduled(), fresh.getStartScheduled(), true));
+        current.setStartActual(pick(current.getStartActual(), fresh.getStartActual(), true));
+        current.setEndActual(pick(current.getEndActual(), fresh.getEndActual(), true));
+        current.setLiveTranslatorCount(pick(current.getLiveTranslatorCount(), fresh.getLiveTranslatorCount(), true));
+        current.setRecentLiveTranslators(pick(current.getRecentLiveTranslators(), fresh.getRecentLiveTranslators(), true));
+        current.setDescription(pick(current.getDescription(), fresh.getDescription(), true));
+        current.setChannelId(pick(current.getChannelId(), fresh.getChannelId(), true));
+        current.setChannel(pick(current.getChannel(), fresh.getChannel(), true));
+        current.setClips(pick(current.getClips(), fresh.getClips(), true));
+        current.setSources(pick(current.getSources(), fresh.getSources(), true));
+        current.setRefers(pick(current.getRefers(), fresh.getRefers(), true));
+        current.setSimulcasts(pick(current.getSimulcasts(), fresh.getSimulcasts(), true));
+        current.setMentions(pick(current.getMentions(), fresh.getMentions(), true));
+        current.setSongs(pick(current.getSongs(), fresh.getSongs(), true));
+        current.setComments(pick(current.getComments(), fresh.getComments(), true));
+        current.setJapaneseName(pick(current.getJapaneseName(), fresh.getJapaneseName(), true));
+        current.setLink(pick(current.getLink(), fresh.getLink(), true));
+        current.setThumbnail(pick(current.getThumbnail(), fresh.getThumbnail(), true));
+        current.setPlaceholderType(pick(current.getPlaceholderType(), fresh.getPlaceholderType(), true));
+        current.setCertainty(pick(current.getCertainty(), fresh.getCertainty(), true));
+        current.setCredits(pick(current.getCredits(), fresh.getCredits(), true));
+
+        if (fresh.getDuration() != 0) {
+            current.setDuration(fresh.getDuration());
+        }
+
+        if (fresh.getSongCount() != 0) {
+            current.setSongCount(fresh.getSongCount());
+        }
+
+        // The viewer count can legitimately drop to 0, so it follows the status it came with
+        if (fresh.getStatus() != null) {
+            current.setLiveViewers(fresh.getLiveViewers());
+        }
+    }
+
+    private static boolean isOlder(Channel fresh, Channel current) {
+        int updated = compare(fresh.getUpdatedAt(), current.getUpdatedAt());
+
+        if (updated != 0) {
+            return updated < 0;
+        }
+
+        return compare(fresh.getCrawledAt(), current.getCrawledAt()) < 0;
+    }
+
+    // Missing timestamps never make an instance look older
+    private static int compare(OffsetDateTime fresh, OffsetDateTime current) {
+        if (fresh == null || current == null) {
+            return 0;
+        }
+
+        return fresh.compareTo(current);
+    }
+
+    private static <T> T pick(T current, T fresh, boolean overwrite) {
+        if (fresh == null) {
+            return current;
+        }
+
+        return current == null || overwrite ? fresh : current;
+    }
+
+}
@@ -0,0 +1,104 @@
+package io.github.yagato.holodexwrapper.store;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import io.github.yagato.holodexwrapper.model.Channel;
+import io.github.yagato.holodexwrapper.model.Video;
+
+import java.io.IOException;
+
+/**
+ * Serializes channels and videos while holding their lock, the one {@link EntityStore} merges
+ * under, wherever they appear in the value being written: on their own, in a list or inside another
+ * entity.
+ */
+final class LockingSerializer extends JsonSerializer<Object> implements ContextualSerializer, ResolvableSerializer {
+
+    private final JsonSerializer<Object> delegate;
+
+    private LockingSerializer(JsonSerializer<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return A module wrapping the serializers of channels and videos.
+     */
+    static SimpleModule module() {
+        SimpleModule module = new SimpleModule("EntityLocking");
+
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                Class<?> type = description.getBeanClass();
+
+                if (Channel.class.isAssignableFrom(type) || Video.class.isAssignableFrom(type)) {
+                    return new LockingSerializer((JsonSerializer<Object>) serializer);
+                }
+
+                return serializer;
+            }
+        });
+
+        return module;
+    }
+
+    @Override
+    public void serialize(Object value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        synchronized (value) {
+            delegate.serialize(value, generator, provider);
+        }
+    }
+
+    @Override
+    public void serializeWithType(Object value, JsonGenerator generator, SerializerProvider provider,
+                                  TypeSerializer typeSerializer) throws IOException {
+        synchronized (value) {
+            delegate.serializeWithType(value, generator, provider, typeSerializer);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+        if (delegate instanceof ContextualSerializer) {
+            JsonSerializer<?> contextual = ((ContextualSerializer) delegate).createContextual(provider, property);
+
+            if (contextual != delegate) {
+                return new LockingSerializer((JsonSerializer<Object>) contextual);
+            }
+        }
+
+        return this;
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer) {
+            ((ResolvableSerializer) delegate).resolve(provider);
+        }
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Object value) {
+        return delegate.isEmpty(provider, value);
+    }
+
+    @Override
+    public Class<Object> handledType() {
+        return delegate.handledType();
+    }
+
+}
@@ -0,0 +1,258 @@
+package io.github.yagato.holodexwrapper.store;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.yagato.holodexwrapper.cache.CacheEntry;
+import io.github.yagato.holodexwrapper.cache.HolodexCache;
+import io.github.yagato.holodexwrapper.model.Channel;
+import io.github.yagato.holodexwrapper.model.Video;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Writes the warm state of a client, its on-heap response cache and its identity map, to a local
+ * file and restores it, so that a restarted process doesn't have to fetch everything again.
+ *
+ * <br><br>
+ *
+ * The file starts with a magic number and a format version, followed by a Deflate-compressed body:
+ * the cache entries, from the least to the most recently used, as (key, storedAt, expiresAt, JSON)
+ * records, then the channels and videos of the identity map as JSON. Keys and JSON are UTF-8, prefixed
+ * with their length. Dates are written as ISO-8601 strings keeping their offset, whatever the
+ * configuration of the client's mapper. Responses are restored in their serialized form and only
+ * decoded by the first lookup of their key.
+ *
+ * <br><br>
+ *
+ * A snapshot is written to a temporary file in the same directory and then moved over the previous
+ * one, so readers never see a partial file. Channels and videos are serialized while holding their
+ * lock, including the canonical instances inside cached responses, so none is captured half-merged.
+ */
+public final class Snapshot {
+
+    private static final int MAGIC = 0x48445853; // "HDXS"
+    private static final int VERSION = 2;
+
+    private Snapshot() {
+    }
+
+    /**
+     * @param path The file to write.
+     * @param cache The response cache to save, or null.
+     * @param entityStore The identity map to save, or null.
+     * @param objectMapper Serializes cached responses and entities, see {@link #snapshotMapper}.
+     * @throws IOException If the file can't be written; the previous snapshot, if any, is kept.
+     */
+    public static void write(Path path, HolodexCache cache, EntityStore entityStore, ObjectMapper objectMapper)
+            throws IOException {
+        ObjectMapper snapshotMapper = snapshotMapper(objectMapper);
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                DataOutputStream header = new DataOutputStream(Channels.newOutputStream(channel));
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.flush();
+
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+                try {
+                    DeflaterOutputStream deflating = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater);
+                    DataOutputStream body = new DataOutputStream(new BufferedOutputStream(deflating));
+
+                    writeCache(body, cache, snapshotMapper);
+                    writeEntities(body, entityStore, snapshotMapper);
+
+                    // Finishes the Deflate stream without closing the channel, which still has to be synced
+                    body.flush();
+                    deflating.finish();
+                } finally {
+                    deflater.end();
+                }
+
+                channel.force(true);
+            }
+
+            move(temporary, absolute);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @param path The file to read.
+     * @param cache The response cache to restore into, or null to skip the cached responses.
+     * @param entityStore The identity map to restore into, or null to skip the entities.
+     * @param objectMapper Deserializes the entities, see {@link #snapshotMapper}.
+     * @return Whether there was a snapshot to restore.
+     * @throws IOException If the file can't be read or isn't a snapshot.
+     */
+    public static boolean read(Path path, HolodexCache cache, EntityStore entityStore, ObjectMapper objectMapper)
+            throws IOException {
+        InputStream file;
+
+        try {
+            file = Files.newInputStream(path);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        try (DataInputStream header = new DataInputStream(file)) {
+            if (header.readInt() != MAGIC) {
+                throw new IOException(path + " isn't a Holodex snapshot");
+            }
+
+            int version = header.readInt();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + path);
+            }
+
+            DataInputStream body = new DataInputStream(new BufferedInputStream(new InflaterInputStream(header)));
+
+            readCache(body, cache);
+            readEntities(body, entityStore, snapshotMapper(objectMapper));
+        }
+
+        return true;
+    }
+
+    private static void writeCache(DataOutputStream out, HolodexCache cache, ObjectMapper objectMapper)
+            throws IOException {
+        if (cache == null) {
+            out.writeInt(0);
+            return;
+        }
+
+        Map<String, CacheEntry<byte[]>> entries = cache.exportL1(objectMapper::writeValueAsBytes);
+
+        out.writeInt(entries.size());
+
+        for (Map.Entry<String, CacheEntry<byte[]>> entry : entries.entrySet()) {
+            CacheEntry<byte[]> cached = entry.getValue();
+
+            writeBytes(out, entry.getKey().getBytes(StandardCharsets.UTF_8));
+            out.writeLong(cached.getStoredAt());
+            out.writeLong(cached.getExpiresAt());
+            writeBytes(out, cached.getValue());
+        }
+    }
+
+    private static void readCache(DataInputStream in, HolodexCache cache) throws IOException {
+        int count = in.readInt();
+
+        for (int i = 0; i < count; i++) {
+            String key = new String(readBytes(in), StandardCharsets.UTF_8);
+            long storedAt = in.readLong();
+            long expiresAt = in.readLong();
+            byte[] value = readBytes(in);
+
+            if (cache != null) {
+                cache.importL1(key, new CacheEntry<>(value, storedAt, expiresAt));
+            }
+        }
+    }
+
+    private static void writeEntities(DataOutputStream out, EntityStore entityStore, ObjectMapper objectMapper)
+            throws IOException {
+        List<Channel> channels = entityStore == null ? List.of() : new ArrayList<>(entityStore.getChannels());
+        List<Video> videos = entityStore == null ? List.of() : new ArrayList<>(entityStore.getVideos());
+
+        out.writeInt(channels.size());
+
+        for (Channel channel : channels) {
+            writeBytes(out, objectMapper.writeValueAsBytes(channel));
+        }
+
+        out.writeInt(videos.size());
+
+        for (Video video : videos) {
+            writeBytes(out, objectMapper.writeValueAsBytes(video));
+        }
+    }
+
+    private static void readEntities(DataInputStream in, EntityStore entityStore, ObjectMapper objectMapper)
+            throws IOException {
+        int channels = in.readInt();
+
+        for (int i = 0; i < channels; i++) {
+            byte[] channel = readBytes(in);
+
+            if (entityStore != null) {
+                entityStore.resolve(objectMapper.readValue(channel, Channel.class));
+            }
+        }
+
+        int videos = in.readInt();
+
+        for (int i = 0; i < videos; i++) {
+            byte[] video = readBytes(in);
+
+            if (entityStore != null) {
+                entityStore.resolve(objectMapper.readValue(video, Video.class));
+            }
+        }
+    }
+
+    /**
+     * @param objectMapper The client's mapper.
+     * @return A copy of it writing dates as ISO-8601 strings and reading them back with their offset,
+     *         so that entities survive a snapshot unchanged, and writing each entity under its lock.
+     */
+    static ObjectMapper snapshotMapper(ObjectMapper objectMapper) {
+        return objectMapper.copy()
+                .registerModule(LockingSerializer.module())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length < 0) {
+            throw new IOException("Corrupt snapshot: negative record length");
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return bytes;
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
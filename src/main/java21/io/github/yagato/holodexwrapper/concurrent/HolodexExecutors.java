@@ -0,0 +1,46 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory for the executor that runs blocking HolodexClient calls.
+ *
+ * <br><br>
+ *
+ * This is the Java 21+ version, which runs every task on its own virtual thread, so thousands of
+ * concurrent blocking requests only cost a few kilobytes each.
+ */
+public final class HolodexExecutors {
+
+    /**
+     * Maximum number of platform threads used on Java versions without virtual threads.
+     */
+    public static final int MAX_PLATFORM_THREADS = 64;
+
+    /**
+     * Maximum number of tasks waiting for a platform thread. Virtual threads never wait.
+     */
+    public static final int MAX_QUEUED_TASKS = 4096;
+
+    private HolodexExecutors() {
+    }
+
+    /**
+     * @return A new executor for blocking requests: one virtual thread per task on Java 21+, a
+     * bounded pool of daemon platform threads otherwise.
+     */
+    public static ExecutorService newRequestExecutor() {
+        return Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("holodex-request-", 1).factory()
+        );
+    }
+
+    /**
+     * @return Whether {@link #newRequestExecutor()} runs tasks on virtual threads.
+     */
+    public static boolean usesVirtualThreads() {
+        return true;
+    }
+
+}
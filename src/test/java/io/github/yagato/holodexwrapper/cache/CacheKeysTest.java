@@ -0,0 +1,112 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yagato.holodexwrapper.constants.SortOrder;
+import io.github.yagato.holodexwrapper.model.PostQueryParameters;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheKeysTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Keep URLs without a query as they are")
+    public void getWithoutQueryTest() {
+        assertEquals("channels/UC1234", CacheKeys.forGet("channels/UC1234"));
+        assertEquals("videos", CacheKeys.forGet("videos?"));
+        assertEquals("videos", CacheKeys.forGet("videos?&lang=&offset=0"));
+    }
+
+    @Test
+    @DisplayName("Ignore the order of GET parameters")
+    public void getParameterOrderTest() {
+        assertEquals(CacheKeys.forGet("videos?&status=live&limit=50"), CacheKeys.forGet("videos?limit=50&status=live"));
+        assertNotEquals(CacheKeys.forGet("videos?&status=live&limit=50"), CacheKeys.forGet("videos?&status=live&limit=25"));
+    }
+
+    @Test
+    @DisplayName("Sort and deduplicate array parameters")
+    public void getArrayParameterTest() {
+        assertEquals(CacheKeys.forGet("videos?&lang=en,ja"), CacheKeys.forGet("videos?&lang=ja,en,ja"));
+        assertEquals(CacheKeys.forGet("live?&include=mentions,description"),
+                CacheKeys.forGet("live?&include=description,mentions"));
+
+        // Other comma-separated values keep their order
+        assertNotEquals(CacheKeys.forGet("videos?&topic=a,b"), CacheKeys.forGet("videos?&topic=b,a"));
+    }
+
+    @Test
+    @DisplayName("Normalize timestamps to UTC")
+    public void getTimestampTest() {
+        assertEquals(CacheKeys.forGet("videos?&from=2023-05-14T03:00:00Z"),
+                CacheKeys.forGet("videos?&from=2023-05-14T03%3A00Z"));
+
+        // Timestamps are URL-encoded, so that the + of an offset isn't read as a space
+        assertEquals(CacheKeys.forGet("videos?&from=2023-05-14T03:00:00Z"),
+                CacheKeys.forGet("videos?&from=2023-05-14T12%3A00%2B09%3A00"));
+        assertNotEquals(CacheKeys.forGet("videos?&from=2023-05-14T03:00:00Z"),
+                CacheKeys.forGet("videos?&to=2023-05-14T03:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Apply the default offset of GET requests")
+    public void getDefaultOffsetTest() {
+        assertEquals(CacheKeys.forGet("videos?&limit=50"), CacheKeys.forGet("videos?&offset=0&limit=50"));
+        assertNotEquals(CacheKeys.forGet("videos?&limit=50"), CacheKeys.forGet("videos?&offset=50&limit=50"));
+    }
+
+    @Test
+    @DisplayName("Canonicalize POST bodies")
+    public void postTest() throws Exception {
+        PostQueryParameters defaults = new PostQueryParameters();
+        defaults.setSort(null);
+        defaults.setOffset(null);
+        defaults.setLimit(null);
+        defaults.setLanguage(new String[0]);
+
+        PostQueryParameters explicit = new PostQueryParameters();
+        explicit.setSort(SortOrder.NEWEST);
+        explicit.setOffset(0);
+        explicit.setLimit(30);
+
+        assertEquals(CacheKeys.forPost("search/videoSearch", explicit, objectMapper),
+                CacheKeys.forPost("search/videoSearch", defaults, objectMapper));
+
+        PostQueryParameters ordered = new PostQueryParameters();
+        ordered.setChannelIds(new String[]{"UC1", "UC2"});
+
+        PostQueryParameters shuffled = new PostQueryParameters();
+        shuffled.setChannelIds(new String[]{"UC2", "UC1", "UC2"});
+
+        assertEquals(CacheKeys.forPost("search/videoSearch", ordered, objectMapper),
+                CacheKeys.forPost("search/videoSearch", shuffled, objectMapper));
+        assertNotEquals(CacheKeys.forPost("search/videoSearch", ordered, objectMapper),
+                CacheKeys.forPost("search/commentSearch", ordered, objectMapper));
+
+        // The parameters themselves are left as they were
+        assertArrayEquals(new String[]{"UC2", "UC1", "UC2"}, shuffled.getChannelIds());
+    }
+
+    @Test
+    @DisplayName("Find the resource of an ID lookup")
+    public void resourceOfTest() {
+        assertEquals("channels/UC1234", CacheKeys.resourceOf(CacheKeys.forGet("channels/UC1234")));
+        assertEquals("videos/abc", CacheKeys.resourceOf(CacheKeys.forGet("videos/abc?&lang=en")));
+        assertEquals(CacheKeys.resourceOf(CacheKeys.forGet("videos/abc?&c=1")),
+                CacheKeys.resourceOf(CacheKeys.forGet("videos/abc?&lang=en")));
+    }
+
+    @Test
+    @DisplayName("Find no resource for queries")
+    public void resourceOfQueryTest() {
+        assertNull(CacheKeys.resourceOf(CacheKeys.forGet("videos?&status=live")));
+        assertNull(CacheKeys.resourceOf(CacheKeys.forGet("channels?&org=Hololive")));
+        assertNull(CacheKeys.resourceOf(CacheKeys.forGet("channels/UC1234/videos?&limit=50")));
+        assertNull(CacheKeys.resourceOf(CacheKeys.forGet("live?&org=Hololive")));
+        assertNull(CacheKeys.resourceOf(CacheKeys.forGet("videos/")));
+        assertNull(CacheKeys.resourceOf("search/videoSearch#0123456789abcdef0123456789abcdef"));
+    }
+
+}
@@ -0,0 +1,181 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Read back stored entries")
+    public void roundTripTest() throws Exception {
+        try (MappedFileCache cache = new MappedFileCache(directory.resolve("cache"), 16, 1024)) {
+            byte[] value = bytes("hello");
+
+            cache.put("videos/abc", value, 0, value.length, Duration.ofMinutes(1));
+            assertArrayEquals(value, cache.getValue("videos/abc"));
+            assertNull(cache.getValue("videos/def"));
+
+            // Only the given range is stored
+            byte[] larger = bytes("__world__");
+            cache.put("videos/abc", larger, 2, 5, Duration.ofMinutes(1));
+            assertArrayEquals(bytes("world"), cache.getValue("videos/abc"));
+
+            cache.remove("videos/abc");
+            assertNull(cache.get("videos/abc"));
+        }
+    }
+
+    @Test
+    @DisplayName("Keep entries across reopening the file")
+    public void reopenTest() throws Exception {
+        Path file = directory.resolve("cache");
+        byte[] value = bytes("hello");
+
+        try (MappedFileCache cache = new MappedFileCache(file, 16, 1024)) {
+            cache.put("videos/abc", value, 0, value.length, Duration.ofMinutes(1));
+        }
+
+        // The sizes of an existing file win
+        try (MappedFileCache cache = new MappedFileCache(file, 32, 4096)) {
+            assertArrayEquals(value, cache.getValue("videos/abc"));
+        }
+    }
+
+    @Test
+    @DisplayName("Overwrite the oldest entries when the log wraps around")
+    public void wraparoundTest() throws Exception {
+        try (MappedFileCache cache = new MappedFileCache(directory.resolve("cache"), 16, 1024)) {
+            // Each record takes 107 of the 1024 bytes, so the tenth one written straddles the end of the log
+            cache.put("old", filled(100, 'o'), 0, 100, Duration.ofMinutes(1));
+
+            for (int i = 0; i < 10; i++) {
+                cache.put("k" + i, filled(101, (char) ('0' + i)), 0, 101, Duration.ofMinutes(1));
+            }
+
+            assertNull(cache.get("old"));
+            assertNull(cache.get("k0"));
+
+            for (int i = 1; i < 10; i++) {
+                assertArrayEquals(filled(101, (char) ('0' + i)), cache.getValue("k" + i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Skip entries too large for the log")
+    public void tooLargeTest() throws Exception {
+        try (MappedFileCache cache = new MappedFileCache(directory.resolve("cache"), 16, 1024)) {
+            cache.put("large", new byte[300], 0, 300, Duration.ofMinutes(1));
+
+            assertNull(cache.get("large"));
+        }
+    }
+
+    @Test
+    @DisplayName("Keep expired entries without serving them as fresh")
+    public void expiryTest() throws Exception {
+        try (MappedFileCache cache = new MappedFileCache(directory.resolve("cache"), 16, 1024)) {
+            byte[] value = bytes("stale");
+            cache.put("videos/abc", value, 0, value.length, Duration.ofMillis(-1));
+
+            assertNull(cache.getValue("videos/abc"));
+
+            CacheEntry<byte[]> entry = cache.get("videos/abc");
+            assertNotNull(entry);
+            assertTrue(entry.isExpired());
+            assertArrayEquals(value, entry.getValue());
+
+            cache.put("channels/UC1", new CacheEntry<>(value, 1000, 2000));
+            CacheEntry<byte[]> copied = cache.get("channels/UC1");
+            assertEquals(1000, copied.getStoredAt());
+            assertEquals(2000, copied.getExpiresAt());
+        }
+    }
+
+    @Test
+    @DisplayName("Share one file between instances of the same process")
+    public void sharedFileTest() throws Exception {
+        Path file = directory.resolve("cache");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try (MappedFileCache first = new MappedFileCache(file, 4096, 65536);
+             MappedFileCache second = new MappedFileCache(file, 4096, 65536)) {
+            Future<?> firstWrites = executor.submit(() -> writeAll(first, "first"));
+            Future<?> secondWrites = executor.submit(() -> writeAll(second, "second"));
+
+            // Neither writer may fail on the other's file lock
+            firstWrites.get(10, TimeUnit.SECONDS);
+            secondWrites.get(10, TimeUnit.SECONDS);
+
+            assertArrayEquals(bytes("first-199"), second.getValue("first-199"));
+            assertArrayEquals(bytes("second-199"), first.getValue("second-199"));
+
+            first.remove("second-199");
+            assertNull(second.get("second-199"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Initialize a file left blank by a process that died while creating it")
+    public void blankFileTest() throws Exception {
+        Path file = directory.resolve("cache");
+        Files.write(file, new byte[4096]);
+
+        try (MappedFileCache cache = new MappedFileCache(file, 16, 1024)) {
+            byte[] value = bytes("hello");
+            cache.put("videos/abc", value, 0, value.length, Duration.ofMinutes(1));
+
+            assertArrayEquals(value, cache.getValue("videos/abc"));
+        }
+
+        assertEquals(64 + 16 * 48 + 1024, Files.size(file));
+    }
+
+    @Test
+    @DisplayName("Reject files that aren't cache files")
+    public void foreignFileTest() throws Exception {
+        Path file = directory.resolve("cache");
+        Files.write(file, bytes("not a cache file, but long enough to hold a header of sixty-four bytes"));
+
+        assertThrows(IOException.class, () -> new MappedFileCache(file, 16, 1024));
+    }
+
+    private static Void writeAll(MappedFileCache cache, String prefix) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            byte[] value = bytes(prefix + "-" + i);
+            cache.put(prefix + "-" + i, value, 0, value.length, Duration.ofMinutes(1));
+        }
+
+        return null;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] filled(int length, char c) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) c);
+
+        return bytes;
+    }
+
+}
@@ -0,0 +1,140 @@
+package io.github.yagato.holodexwrapper.cache;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NegativeCacheTest {
+
+    // The smallest table has 32 slots
+    private static final int SLOTS = 32;
+    private static final int MAX_PROBES = 8;
+
+    @Test
+    @DisplayName("Remember a missing resource until it expires")
+    public void expiryTest() {
+        NegativeCache negativeCache = new NegativeCache(16);
+        long now = System.currentTimeMillis();
+
+        negativeCache.put("channels/UC1", 404, now + 60000);
+        negativeCache.put("videos/abc", 400, now + 60000);
+        negativeCache.put("videos/def", 410, now - 1);
+
+        assertEquals(404, negativeCache.get("channels/UC1"));
+        assertEquals(400, negativeCache.get("videos/abc"));
+        assertEquals(0, negativeCache.get("videos/def"));
+        assertEquals(0, negativeCache.get("videos/ghi"));
+
+        // Remembering it again extends it
+        negativeCache.put("videos/def", 410, now + 60000);
+        assertEquals(410, negativeCache.get("videos/def"));
+    }
+
+    @Test
+    @DisplayName("Forget a removed resource")
+    public void removeTest() {
+        NegativeCache negativeCache = new NegativeCache(16);
+        long expiresAt = System.currentTimeMillis() + 60000;
+
+        negativeCache.put("channels/UC1", 404, expiresAt);
+        negativeCache.put("channels/UC2", 404, expiresAt);
+        negativeCache.remove("channels/UC1");
+
+        assertEquals(0, negativeCache.get("channels/UC1"));
+        assertEquals(404, negativeCache.get("channels/UC2"));
+
+        negativeCache.clear();
+
+        assertEquals(0, negativeCache.get("channels/UC2"));
+    }
+
+    @Test
+    @DisplayName("Forget a missing resource when any of its responses is invalidated")
+    public void invalidateTest() {
+        HolodexCache holodexCache = new HolodexCache(new HeapCache(), null);
+        CachePolicy policy = CachePolicy.ttl(Duration.ofMinutes(1));
+        policy.setNegativeTtl(Duration.ofMinutes(1));
+
+        String resource = CacheKeys.resourceOf(CacheKeys.forGet("videos/abc?&lang=en"));
+        holodexCache.putMissing(policy, resource, 404);
+
+        assertEquals(404, holodexCache.getMissingStatus(policy, resource));
+
+        holodexCache.invalidate(CacheKeys.forGet("videos/abc?&c=1"));
+
+        assertEquals(0, holodexCache.getMissingStatus(policy, resource));
+    }
+
+    @Test
+    @DisplayName("Keep colliding keys apart")
+    public void collisionTest() {
+        NegativeCache negativeCache = new NegativeCache(1);
+        List<String> keys = collidingKeys(MAX_PROBES);
+        long expiresAt = System.currentTimeMillis() + 60000;
+
+        for (int i = 0; i < keys.size(); i++) {
+            negativeCache.put(keys.get(i), 400 + i, expiresAt);
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(400 + i, negativeCache.get(keys.get(i)));
+        }
+
+        // A removed key doesn't hide the ones probed after it
+        negativeCache.remove(keys.get(0));
+
+        assertEquals(0, negativeCache.get(keys.get(0)));
+        assertEquals(400 + MAX_PROBES - 1, negativeCache.get(keys.get(MAX_PROBES - 1)));
+    }
+
+    @Test
+    @DisplayName("Replace the entry expiring first when the probed slots are full")
+    public void replacementTest() {
+        NegativeCache negativeCache = new NegativeCache(1);
+        List<String> keys = collidingKeys(MAX_PROBES + 1);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < MAX_PROBES; i++) {
+            // The fourth key expires first
+            negativeCache.put(keys.get(i), 404, now + (i == 3 ? 30000 : 60000 + i));
+        }
+
+        negativeCache.put(keys.get(MAX_PROBES), 410, now + 60000);
+
+        assertEquals(410, negativeCache.get(keys.get(MAX_PROBES)));
+        assertEquals(0, negativeCache.get(keys.get(3)));
+
+        for (int i = 0; i < MAX_PROBES; i++) {
+            if (i != 3) {
+                assertEquals(404, negativeCache.get(keys.get(i)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Reject an empty table")
+    public void invalidSizeTest() {
+        assertThrows(RuntimeException.class, () -> new NegativeCache(0));
+    }
+
+    // Keys starting their probe sequence at the same slot of the smallest table
+    private static List<String> collidingKeys(int count) {
+        List<String> keys = new ArrayList<>();
+        long slot = NegativeCache.fingerprint("videos/0") & (SLOTS - 1);
+
+        for (int i = 0; keys.size() < count; i++) {
+            String key = "videos/" + i;
+
+            if ((NegativeCache.fingerprint(key) & (SLOTS - 1)) == slot) {
+                keys.add(key);
+            }
+        }
+
+        return keys;
+    }
+
+}
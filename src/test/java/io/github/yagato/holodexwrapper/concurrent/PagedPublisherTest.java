@@ -0,0 +1,143 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yagato.holodexwrapper.http.RequestContext;
+import io.github.yagato.holodexwrapper.json.JsonArrayIterator;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedPublisherTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Page through the source until an incomplete page")
+    public void pagingTest() throws Exception {
+        AtomicInteger pagesOpened = new AtomicInteger();
+        PagedPublisher<Integer> publisher = new PagedPublisher<>((offset, limit) -> {
+            pagesOpened.incrementAndGet();
+            return page(offset >= 4 ? "[4]" : "[" + offset + "," + (offset + 1) + "]");
+        }, 0, 2, executor);
+
+        Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(collector);
+
+        collector.completion.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(0, 1, 2, 3, 4), collector.received);
+        assertEquals(3, pagesOpened.get());
+    }
+
+    @Test
+    @DisplayName("Fail the subscription when the executor rejects it")
+    public void rejectedTest() {
+        PagedPublisher<Integer> publisher = new PagedPublisher<>((offset, limit) -> page("[1]"), 0, 2, task -> {
+            throw new RejectedExecutionException("Queue full");
+        });
+
+        Collector collector = new Collector(1);
+        publisher.subscribe(collector);
+
+        Exception e = assertThrows(Exception.class, () -> collector.completion.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RequestRejectedException.class, e.getCause());
+        assertTrue(collector.received.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Abort a page that is still being opened when the subscription is cancelled")
+    public void cancelBlockedOpenTest() throws Exception {
+        CountDownLatch opening = new CountDownLatch(1);
+        CompletableFuture<Boolean> aborted = new CompletableFuture<>();
+        PagedPublisher<Integer> publisher = new PagedPublisher<>((offset, limit) -> {
+            opening.countDown();
+
+            try {
+                // Stands in for a request waiting for a permit or for its response
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                aborted.complete(RequestContext.current().isCancelled());
+                throw e;
+            }
+
+            return page("[1]");
+        }, 0, 2, executor);
+
+        Collector collector = new Collector(1);
+        publisher.subscribe(collector);
+
+        assertTrue(opening.await(5, TimeUnit.SECONDS));
+        collector.subscription.cancel();
+
+        assertTrue(aborted.get(5, TimeUnit.SECONDS));
+        assertFalse(collector.completion.isDone());
+        assertTrue(collector.received.isEmpty());
+    }
+
+    static JsonArrayIterator<Integer> page(String json) throws Exception {
+        MappingIterator<Integer> elements = OBJECT_MAPPER.readerFor(Integer.class).readValues(json);
+
+        return new JsonArrayIterator<>(elements, () -> {
+        }, () -> {
+        }, value -> value);
+    }
+
+    static class Collector implements Flow.Subscriber<Integer> {
+
+        final List<Integer> received = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private final long initialDemand;
+        volatile Flow.Subscription subscription;
+
+        Collector(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completion.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.complete(null);
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package io.github.yagato.holodexwrapper.concurrent;
+
+import io.github.yagato.holodexwrapper.http.Deadline;
+import io.github.yagato.holodexwrapper.http.DeadlineExceededException;
+import io.github.yagato.holodexwrapper.http.InMemoryRateLimitStore;
+import io.github.yagato.holodexwrapper.http.Priority;
+import io.github.yagato.holodexwrapper.http.RateLimitStore;
+import io.github.yagato.holodexwrapper.http.RateLimiter;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestSchedulerTest {
+
+    private static final String BUCKET = "test";
+
+    // One permit per second, so that no permit is refilled while a test runs
+    private static final int PERMITS = 100;
+    private static final long INTERVAL_MICROS = 1_000_000;
+
+    private final RateLimitStore store = new InMemoryRateLimitStore();
+    private final RateLimiter rateLimiter = new RateLimiter(PERMITS, Duration.ofSeconds(PERMITS), store, BUCKET);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void tearDown() {
+        release(PERMITS);
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Grant permits right away while nothing is queued")
+    public void immediateTest() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(rateLimiter, 10);
+
+        scheduler.acquire(Priority.LOW, null);
+        scheduler.acquire(Priority.HIGH, null);
+
+        assertEquals(0, scheduler.getQueued());
+        assertEquals(PERMITS - 2, rateLimiter.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Share permits between waiting classes by weight")
+    public void weightsTest() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(rateLimiter, 100);
+        List<Priority> granted = Collections.synchronizedList(new ArrayList<>());
+
+        release(0);
+
+        for (int i = 0; i < 9; i++) {
+            for (Priority priority : Priority.values()) {
+                executor.execute(() -> {
+                    try {
+                        scheduler.acquire(priority, null);
+                        granted.add(priority);
+                    } catch (Exception ignored) {
+                        // The executor is shut down at the end of the test
+                    }
+                });
+            }
+        }
+
+        await(() -> scheduler.getQueued() == 27);
+
+        // HIGH:NORMAL:LOW weigh 8:3:1, so 12 permits go 8, 3 and 1
+        release(12);
+        await(() -> granted.size() == 12);
+
+        assertEquals(8, Collections.frequency(granted, Priority.HIGH));
+        assertEquals(3, Collections.frequency(granted, Priority.NORMAL));
+        assertEquals(1, Collections.frequency(granted, Priority.LOW));
+        assertEquals(15, scheduler.getQueued());
+    }
+
+    @Test
+    @DisplayName("Shed the lowest priority when the queue is full, else reject")
+    public void sheddingTest() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(rateLimiter, 2);
+
+        release(0);
+
+        Future<?> firstLow = executor.submit(() -> acquire(scheduler, Priority.LOW));
+        await(() -> scheduler.getQueued() == 1);
+        Future<?> secondLow = executor.submit(() -> acquire(scheduler, Priority.LOW));
+        await(() -> scheduler.getQueued() == 2);
+
+        Future<?> high = executor.submit(() -> acquire(scheduler, Priority.HIGH));
+
+        // The most recent LOW request makes room for the HIGH one
+        Exception shed = assertThrows(Exception.class, () -> secondLow.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RequestRejectedException.class, shed.getCause());
+        assertEquals(1, scheduler.getShedCount());
+        await(() -> scheduler.getQueued() == 2);
+
+        // Nothing queued is below LOW, so another LOW request is rejected
+        assertThrows(RequestRejectedException.class, () -> scheduler.acquire(Priority.LOW, null));
+        assertEquals(1, scheduler.getRejectedCount());
+
+        release(2);
+        high.get(5, TimeUnit.SECONDS);
+        firstLow.get(5, TimeUnit.SECONDS);
+        assertEquals(0, scheduler.getQueued());
+    }
+
+    @Test
+    @DisplayName("Give up waiting at the deadline")
+    public void deadlineTest() {
+        RequestScheduler scheduler = new RequestScheduler(rateLimiter, 10);
+
+        release(0);
+
+        assertThrows(DeadlineExceededException.class,
+                () -> scheduler.acquire(Priority.HIGH, Deadline.after(Duration.ofMillis(50))));
+        assertEquals(0, scheduler.getQueued());
+    }
+
+    private Void acquire(RequestScheduler scheduler, Priority priority) throws Exception {
+        scheduler.acquire(priority, null);
+
+        return null;
+    }
+
+    // Leaves exactly the given number of permits, the next one being refilled almost a second later
+    private void release(int permits) {
+        Instant now = Instant.now();
+        long nowMicros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+        long backlog = (PERMITS - permits) * INTERVAL_MICROS - INTERVAL_MICROS / 100;
+
+        while (true) {
+            long state = store.get(BUCKET);
+
+            if (store.compareAndSet(BUCKET, state, nowMicros + backlog)) {
+                return;
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+
+}
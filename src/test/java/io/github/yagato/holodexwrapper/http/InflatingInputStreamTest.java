@@ -0,0 +1,160 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InflatingInputStreamTest {
+
+    private static final byte[] JSON = repeat("{\"id\":\"abc\",\"status\":\"live\"},", 2000);
+
+    private final InflaterPool pool = new InflaterPool(4, new BufferPool());
+
+    @Test
+    @DisplayName("Inflate gzip and check its trailer")
+    public void gzipTest() throws IOException {
+        try (InputStream in = InflatingInputStream.gzip(new ByteArrayInputStream(gzip(JSON)), pool)) {
+            assertArrayEquals(JSON, in.readAllBytes());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    @DisplayName("Inflate zlib and raw deflate")
+    public void deflateTest() throws IOException {
+        try (InputStream in = InflatingInputStream.deflate(new ByteArrayInputStream(deflate(JSON, false)), pool)) {
+            assertArrayEquals(JSON, in.readAllBytes());
+        }
+
+        try (InputStream in = InflatingInputStream.deflate(new ByteArrayInputStream(deflate(JSON, true)), pool)) {
+            assertArrayEquals(JSON, in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Reject a corrupt or truncated trailer")
+    public void corruptTrailerTest() throws IOException {
+        byte[] crc = gzip(JSON);
+        crc[crc.length - 8] ^= 1;
+        assertThrows(ZipException.class, () -> readAll(InflatingInputStream.gzip(new ByteArrayInputStream(crc), pool)));
+
+        byte[] size = gzip(JSON);
+        size[size.length - 1] ^= 1;
+        assertThrows(ZipException.class, () -> readAll(InflatingInputStream.gzip(new ByteArrayInputStream(size), pool)));
+
+        byte[] adler = deflate(JSON, false);
+        adler[adler.length - 1] ^= 1;
+        assertThrows(ZipException.class, () -> readAll(InflatingInputStream.deflate(new ByteArrayInputStream(adler), pool)));
+
+        byte[] truncated = Arrays.copyOf(gzip(JSON), gzip(JSON).length - 3);
+        assertThrows(IOException.class, () -> readAll(InflatingInputStream.gzip(new ByteArrayInputStream(truncated), pool)));
+    }
+
+    @Test
+    @DisplayName("Reject data after the trailer")
+    public void trailingDataTest() throws IOException {
+        byte[] gzip = gzip(JSON);
+        byte[] trailing = Arrays.copyOf(gzip, gzip.length + 1);
+
+        assertThrows(ZipException.class, () -> readAll(InflatingInputStream.gzip(new ByteArrayInputStream(trailing), pool)));
+    }
+
+    @Test
+    @DisplayName("Return the connection to the pool once the body is read to its end")
+    public void connectionReuseTest() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        byte[] body = gzip(JSON);
+
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+
+        try (CloseableHttpClient httpClient = HttpClients.custom()
+                .disableContentCompression()
+                .setConnectionManager(connections)
+                .build()) {
+            Transport transport = new Transport(httpClient, new BufferPool(), RequestConfig.DEFAULT);
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+            try (Response response = transport.execute(new HttpGet(url));
+                 PooledBuffer buffer = response.readFully()) {
+                assertArrayEquals(JSON, Arrays.copyOf(buffer.array(), buffer.length()));
+            }
+
+            assertEquals(0, connections.getTotalStats().getLeased());
+            assertEquals(1, connections.getTotalStats().getAvailable());
+
+            // Closing before the end drops the connection instead
+            try (Response response = transport.execute(new HttpGet(url))) {
+                assertEquals('{', response.getBody().read());
+            }
+
+            assertEquals(0, connections.getTotalStats().getLeased());
+            assertEquals(0, connections.getTotalStats().getAvailable());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void readAll(InputStream in) throws IOException {
+        try (in) {
+            in.readAllBytes();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+
+        try (DeflaterOutputStream deflating = new DeflaterOutputStream(out, deflater)) {
+            deflating.write(data);
+        } finally {
+            deflater.end();
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] repeat(String text, int times) {
+        return text.repeat(times).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,106 @@
+package io.github.yagato.holodexwrapper.http;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    @Test
+    @DisplayName("Allow a whole period's worth of permits in a burst")
+    public void burstTest() {
+        RateLimiter rateLimiter = new RateLimiter(5, Duration.ofSeconds(100));
+
+        assertEquals(5, rateLimiter.availablePermits());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire());
+        }
+
+        assertFalse(rateLimiter.tryAcquire());
+        assertEquals(0, rateLimiter.availablePermits());
+
+        // One permit is refilled every 20 seconds
+        long waitNanos = rateLimiter.nanosUntilAvailable();
+        assertTrue(waitNanos > TimeUnit.SECONDS.toNanos(19), "waited " + waitNanos);
+        assertTrue(waitNanos <= TimeUnit.SECONDS.toNanos(20), "waited " + waitNanos);
+    }
+
+    @Test
+    @DisplayName("Refill permits continuously, up to the burst")
+    public void refillTest() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(10, Duration.ofMillis(200));
+
+        while (rateLimiter.tryAcquire()) {
+            // Empty the bucket
+        }
+
+        Thread.sleep(70);
+
+        int refilled = rateLimiter.availablePermits();
+        assertTrue(refilled >= 3 && refilled <= 10, "refilled " + refilled);
+
+        Thread.sleep(300);
+        assertEquals(10, rateLimiter.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Wait for a permit, or fail at the deadline")
+    public void acquireTest() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(2, Duration.ofMillis(100));
+
+        rateLimiter.acquire(null);
+        rateLimiter.acquire(null);
+
+        long start = System.nanoTime();
+        rateLimiter.acquire(Deadline.after(Duration.ofSeconds(5)));
+        long waited = System.nanoTime() - start;
+
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(30), "waited " + waited);
+
+        RateLimiter slow = new RateLimiter(1, Duration.ofHours(1));
+        slow.acquire(null);
+
+        assertThrows(DeadlineExceededException.class, () -> slow.acquire(Deadline.after(Duration.ofMillis(50))));
+    }
+
+    @Test
+    @DisplayName("Drain every available permit")
+    public void drainTest() {
+        RateLimiter rateLimiter = new RateLimiter(10, Duration.ofSeconds(100));
+
+        rateLimiter.drain();
+
+        assertEquals(0, rateLimiter.availablePermits());
+        assertFalse(rateLimiter.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Share a bucket through a store")
+    public void sharedStoreTest() {
+        RateLimitStore store = new InMemoryRateLimitStore();
+        RateLimiter first = new RateLimiter(3, Duration.ofSeconds(100), store, "shared");
+        RateLimiter second = new RateLimiter(3, Duration.ofSeconds(100), store, "shared");
+        RateLimiter other = new RateLimiter(3, Duration.ofSeconds(100), store, "other");
+
+        assertTrue(first.tryAcquire());
+        assertTrue(second.tryAcquire());
+        assertTrue(first.tryAcquire());
+        assertFalse(second.tryAcquire());
+        assertEquals(3, other.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Name buckets without revealing the key")
+    public void bucketForTest() {
+        String bucket = RateLimiter.bucketFor("secret-key");
+
+        assertEquals(bucket, RateLimiter.bucketFor("secret-key"));
+        assertNotEquals(bucket, RateLimiter.bucketFor("other-key"));
+        assertFalse(bucket.contains("secret"));
+    }
+
+}
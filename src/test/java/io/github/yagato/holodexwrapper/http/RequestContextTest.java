@@ -0,0 +1,158 @@
+package io.github.yagato.holodexwrapper.http;
+
+import io.github.yagato.holodexwrapper.concurrent.RequestTask;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestContextTest {
+
+    @Test
+    @DisplayName("Deadline expiry and remaining time")
+    public void deadlineTest() throws InterruptedException {
+        Deadline later = Deadline.after(Duration.ofHours(1));
+        Deadline passed = Deadline.after(Duration.ofMillis(-1));
+
+        assertFalse(later.isExpired());
+        assertTrue(later.remainingMillis() > Duration.ofMinutes(59).toMillis());
+        assertDoesNotThrow(() -> later.check("testing"));
+
+        assertTrue(passed.isExpired());
+        assertEquals(0, passed.remainingMillis());
+        assertThrows(DeadlineExceededException.class, () -> passed.check("testing"));
+
+        Deadline soon = Deadline.after(Duration.ofMillis(20));
+        Thread.sleep(40);
+        assertTrue(soon.isExpired());
+    }
+
+    @Test
+    @DisplayName("Deadline without overflow for huge timeouts")
+    public void deadlineOverflowTest() {
+        Deadline forever = Deadline.after(Duration.ofSeconds(Long.MAX_VALUE));
+
+        assertFalse(forever.isExpired());
+        assertTrue(forever.remainingNanos() > 0);
+    }
+
+    @Test
+    @DisplayName("Earliest of two deadlines")
+    public void earliestTest() {
+        Deadline first = Deadline.after(Duration.ofSeconds(1));
+        Deadline second = Deadline.after(Duration.ofSeconds(10));
+
+        assertSame(first, Deadline.earliest(first, second));
+        assertSame(first, Deadline.earliest(second, first));
+        assertSame(first, Deadline.earliest(first, null));
+        assertSame(second, Deadline.earliest(null, second));
+        assertNull(Deadline.earliest(null, null));
+    }
+
+    @Test
+    @DisplayName("Enter and restore the current context")
+    public void scopeTest() {
+        assertNull(RequestContext.current());
+
+        RequestContext outer = RequestContext.create(RequestOptions.timeout(Duration.ofSeconds(10)));
+
+        try (RequestContext.Scope outerScope = outer.enter()) {
+            assertSame(outer, RequestContext.current());
+            assertSame(outer.getDeadline(), RequestContext.currentDeadline());
+
+            RequestContext inner = RequestContext.create(new RequestOptions());
+
+            try (RequestContext.Scope innerScope = inner.enter()) {
+                assertSame(inner, RequestContext.current());
+            }
+
+            assertSame(outer, RequestContext.current());
+        }
+
+        assertNull(RequestContext.current());
+        assertNull(RequestContext.currentDeadline());
+    }
+
+    @Test
+    @DisplayName("Nested calls can't outlive the outer deadline")
+    public void nestedDeadlineTest() {
+        RequestContext outer = RequestContext.create(RequestOptions.timeout(Duration.ofSeconds(1)));
+
+        try (RequestContext.Scope scope = outer.enter()) {
+            RequestContext longer = RequestContext.create(RequestOptions.timeout(Duration.ofHours(1)));
+            RequestContext none = RequestContext.create(new RequestOptions());
+            RequestContext shorter = RequestContext.create(RequestOptions.timeout(Duration.ofMillis(100)));
+
+            assertSame(outer.getDeadline(), longer.getDeadline());
+            assertSame(outer.getDeadline(), none.getDeadline());
+            assertNotSame(outer.getDeadline(), shorter.getDeadline());
+            assertTrue(shorter.getDeadline().remainingNanos() < outer.getDeadline().remainingNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("Cancellation reaches children but not detached contexts")
+    public void cancellationTest() {
+        RequestContext parent = RequestContext.create(RequestOptions.timeout(Duration.ofSeconds(10)));
+        RequestContext child;
+        RequestContext detached;
+
+        try (RequestContext.Scope scope = parent.enter()) {
+            child = RequestContext.fork();
+            detached = RequestContext.detached(new RequestOptions());
+        }
+
+        assertSame(parent.getDeadline(), child.getDeadline());
+        assertSame(parent.getOptions(), child.getOptions());
+        assertNull(detached.getDeadline());
+
+        parent.cancel();
+
+        assertTrue(parent.isCancelled());
+        assertTrue(child.isCancelled());
+        assertFalse(detached.isCancelled());
+    }
+
+    @Test
+    @DisplayName("Tasks run in the forked context on another thread")
+    public void taskPropagationTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            RequestContext parent = RequestContext.create(RequestOptions.timeout(Duration.ofSeconds(10)));
+            RequestTask<Deadline> task;
+
+            try (RequestContext.Scope scope = parent.enter()) {
+                task = new RequestTask<>(RequestContext::currentDeadline, RequestContext.fork());
+            }
+
+            executor.execute(task);
+
+            assertSame(parent.getDeadline(), task.get(5, TimeUnit.SECONDS));
+
+            // The worker thread doesn't keep the context once the task is done
+            Future<RequestContext> after = executor.submit(RequestContext::current);
+            assertNull(after.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Cancelling a task cancels its context")
+    public void taskCancellationTest() {
+        RequestContext context = RequestContext.fork();
+        RequestTask<Void> task = new RequestTask<>(() -> null, context);
+
+        task.cancel(true);
+
+        assertTrue(context.isCancelled());
+        assertTrue(task.isCancelled());
+    }
+
+}
@@ -0,0 +1,59 @@
+package io.github.yagato.holodexwrapper.http;
+
+import com.mashape.unirest.http.Unirest;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.jupiter.api.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransportTest {
+
+    @Test
+    @DisplayName("Send requests through the proxy set on Unirest")
+    public void unirestProxyTest() throws Exception {
+        HttpServer proxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        List<String> proxied = new CopyOnWriteArrayList<>();
+        byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+
+        proxy.createContext("/", exchange -> {
+            proxied.add(exchange.getRequestURI().toString());
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        proxy.start();
+
+        try {
+            Unirest.setProxy(new HttpHost("127.0.0.1", proxy.getAddress().getPort()));
+            Transport transport = Transport.fromUnirest();
+
+            try (Response response = transport.execute(new HttpGet("http://holodex.invalid/api/v2/live"))) {
+                response.requireJson();
+            }
+
+            // Requests with a deadline are given their own config, which must keep the proxy
+            try (RequestContext.Scope scope = RequestContext.create(RequestOptions.timeout(Duration.ofSeconds(10))).enter();
+                 Response response = transport.execute(new HttpGet("http://holodex.invalid/api/v2/videos"))) {
+                response.requireJson();
+            }
+
+            assertEquals(List.of("http://holodex.invalid/api/v2/live", "http://holodex.invalid/api/v2/videos"), proxied);
+        } finally {
+            Unirest.setProxy(null);
+            proxy.stop(0);
+        }
+    }
+
+}
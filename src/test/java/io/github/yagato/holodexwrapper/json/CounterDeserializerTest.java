@@ -0,0 +1,37 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yagato.holodexwrapper.model.CompactChannel;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CounterDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Read counters sent as strings or numbers")
+    public void readCounterTest() throws Exception {
+        CompactChannel channel = objectMapper.readValue(
+                "{\"video_count\":\"1234\",\"subscriber_count\":5678,\"view_count\":null,"
+                        + "\"clip_count\":\"999999999999999999\"}",
+                CompactChannel.class);
+
+        assertEquals(1234, channel.getVideoCount());
+        assertEquals(5678, channel.getSubscriberCount());
+        assertEquals(0, channel.getViewCount());
+        assertEquals(999999999999999999L, channel.getClipCount());
+    }
+
+    @Test
+    @DisplayName("Reject counters that aren't numbers or don't fit in a long")
+    public void rejectCounterTest() {
+        assertThrows(JsonMappingException.class,
+                () -> objectMapper.readValue("{\"video_count\":\"12a4\"}", CompactChannel.class));
+        assertThrows(JsonMappingException.class,
+                () -> objectMapper.readValue("{\"video_count\":\"99999999999999999999\"}", CompactChannel.class));
+    }
+
+}
@@ -0,0 +1,110 @@
+package io.github.yagato.holodexwrapper.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelArrayDecoderTest {
+
+    @Test
+    @DisplayName("Scan flat array")
+    public void scanFlatArrayTest() {
+        // Leading whitespace is skipped, trailing whitespace is left to the element's parser
+        assertEquals(List.of("1", "\"a\" ", "true"), elements("[1, \"a\" ,true]"));
+    }
+
+    @Test
+    @DisplayName("Scan nested arrays and objects")
+    public void scanNestedTest() {
+        assertEquals(
+                List.of("{\"a\":[1,2],\"b\":{\"c\":[]}}", "[[3],[4,[5]]]", "{}"),
+                elements("[{\"a\":[1,2],\"b\":{\"c\":[]}},[[3],[4,[5]]],{}]")
+        );
+    }
+
+    @Test
+    @DisplayName("Scan strings holding brackets, commas and escaped quotes")
+    public void scanEscapedStringsTest() {
+        assertEquals(
+                List.of("\"a,b]\"", "{\"k\":\"x\\\"},[\"}", "\"\\\\\"", "\"}\""),
+                elements("[\"a,b]\",{\"k\":\"x\\\"},[\"},\"\\\\\",\"}\"]")
+        );
+    }
+
+    @Test
+    @DisplayName("Scan empty arrays")
+    public void scanEmptyArrayTest() {
+        assertEquals(List.of(), elements("[]"));
+        assertEquals(List.of(), elements(" [ \n ] "));
+    }
+
+    @Test
+    @DisplayName("Scan with an offset into the buffer")
+    public void scanOffsetTest() {
+        byte[] body = "xx[1,2]yy".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(new int[]{3, 4, 5, 6}, ParallelArrayDecoder.scanElements(body, 2, 5));
+    }
+
+    @Test
+    @DisplayName("Reject malformed or non-array JSON")
+    public void scanMalformedTest() {
+        assertNull(scan("{\"a\":1}"));
+        assertNull(scan("[1,2"));
+        assertNull(scan("[1,,2]"));
+        assertNull(scan("[1,]"));
+        assertNull(scan("[1] 2"));
+        assertNull(scan("[\"unterminated]"));
+        assertNull(scan(""));
+    }
+
+    @Test
+    @DisplayName("Decode in parallel in the original order")
+    public void decodeTest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ParallelArrayDecoder decoder = new ParallelArrayDecoder(objectMapper, ForkJoinPool.commonPool(), 0);
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class);
+        StringBuilder json = new StringBuilder("[");
+
+        for (int i = 0; i < 5000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"i\":").append(i).append(",\"s\":\"[,]\"}");
+        }
+
+        byte[] body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        List<Map<String, Object>> decoded = decoder.decode(body, 0, body.length, listType);
+
+        assertEquals(5000, decoded.size());
+
+        for (int i = 0; i < decoded.size(); i++) {
+            assertEquals(i, decoded.get(i).get("i"));
+        }
+    }
+
+    private static int[] scan(String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        return ParallelArrayDecoder.scanElements(body, 0, body.length);
+    }
+
+    private static List<String> elements(String json) {
+        int[] bounds = scan(json);
+
+        assertNotNull(bounds);
+
+        List<String> elements = new ArrayList<>();
+
+        for (int i = 0; i < bounds.length; i += 2) {
+            elements.add(json.substring(bounds[i], bounds[i + 1]));
+        }
+
+        return elements;
+    }
+
+}
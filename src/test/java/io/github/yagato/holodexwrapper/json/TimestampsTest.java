@@ -0,0 +1,107 @@
+package io.github.yagato.holodexwrapper.json;
+
+import org.junit.jupiter.api.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimestampsTest {
+
+    @Test
+    @DisplayName("Parse UTC timestamps")
+    public void parseUtcTest() {
+        assertEquals(0L, Timestamps.parseEpochMillis("1970-01-01T00:00:00Z"));
+        assertEquals(epochMillis("2023-05-14T12:30:45.123Z"), Timestamps.parseEpochMillis("2023-05-14T12:30:45.123Z"));
+        assertEquals(epochMillis("2024-02-29T23:59:59Z"), Timestamps.parseEpochMillis("2024-02-29t23:59:59z"));
+        assertEquals(epochMillis("1969-12-31T23:59:59Z"), Timestamps.parseEpochMillis("1969-12-31T23:59:59Z"));
+    }
+
+    @Test
+    @DisplayName("Parse fractional seconds of any precision")
+    public void parseFractionTest() {
+        assertEquals(epochMillis("2023-05-14T12:30:45.100Z"), Timestamps.parseEpochMillis("2023-05-14T12:30:45.1Z"));
+        assertEquals(epochMillis("2023-05-14T12:30:45.120Z"), Timestamps.parseEpochMillis("2023-05-14T12:30:45.12Z"));
+        assertEquals(epochMillis("2023-05-14T12:30:45.123Z"), Timestamps.parseEpochMillis("2023-05-14T12:30:45.123456789Z"));
+        assertEquals(epochMillis("2023-05-14T12:30:45Z"), Timestamps.parseEpochMillis("2023-05-14T12:30:45.Z"));
+    }
+
+    @Test
+    @DisplayName("Parse offsets")
+    public void parseOffsetTest() {
+        long expected = epochMillis("2023-05-14T03:00:00Z");
+
+        assertEquals(expected, Timestamps.parseEpochMillis("2023-05-14T12:00:00+09:00"));
+        assertEquals(expected, Timestamps.parseEpochMillis("2023-05-14T12:00:00+0900"));
+        assertEquals(expected, Timestamps.parseEpochMillis("2023-05-14T12:00:00+09"));
+        assertEquals(expected, Timestamps.parseEpochMillis("2023-05-13T21:30:00-05:30"));
+        assertEquals(expected, Timestamps.parseEpochMillis("2023-05-14 03:00:00.000+00:00"));
+    }
+
+    @Test
+    @DisplayName("Parse a region of a buffer")
+    public void parseRegionTest() {
+        char[] buffer = "xx\"2023-05-14T12:30:45.123Z\"yy".toCharArray();
+
+        assertEquals(epochMillis("2023-05-14T12:30:45.123Z"), Timestamps.parseEpochMillis(buffer, 3, 24));
+    }
+
+    @Test
+    @DisplayName("Parse the last day of each month")
+    public void parseMonthLengthTest() {
+        assertEquals(epochMillis("2024-02-29T00:00:00Z"), Timestamps.parseEpochMillis("2024-02-29T00:00:00Z"));
+        assertEquals(epochMillis("2000-02-29T00:00:00Z"), Timestamps.parseEpochMillis("2000-02-29T00:00:00Z"));
+        assertEquals(epochMillis("2023-02-28T00:00:00Z"), Timestamps.parseEpochMillis("2023-02-28T00:00:00Z"));
+        assertEquals(epochMillis("2023-04-30T00:00:00Z"), Timestamps.parseEpochMillis("2023-04-30T00:00:00Z"));
+        assertEquals(epochMillis("2023-12-31T00:00:00Z"), Timestamps.parseEpochMillis("2023-12-31T00:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Reject malformed timestamps")
+    public void parseMalformedTest() {
+        String[] malformed = {
+                "",
+                "2023-05-14",
+                "2023-05-14T12:30:45",
+                "2023-05-14T12:30:45.123",
+                "2023/05/14T12:30:45Z",
+                "2023-05-14X12:30:45Z",
+                "2023-13-14T12:30:45Z",
+                "2024-02-30T12:30:45Z",
+                "2024-02-31T00:00:00Z",
+                "2023-02-29T12:30:45Z",
+                "1900-02-29T12:30:45Z",
+                "2023-04-31T12:30:45Z",
+                "2023-11-31T12:30:45Z",
+                "2023-05-14T24:30:45Z",
+                "2023-05-14T12:60:45Z",
+                "2023-05-1aT12:30:45Z",
+                "2023-05-14T12:30:45+9",
+                "2023-05-14T12:30:45+09:",
+                "2023-05-14T12:30:45+09:0",
+                "2023-05-14T12:30:45Z+",
+                "2023-05-14T12:30:45ZZ",
+        };
+
+        for (String text : malformed) {
+            assertThrows(IllegalArgumentException.class, () -> Timestamps.parseEpochMillis(text), text);
+        }
+    }
+
+    @Test
+    @DisplayName("Convert to and from OffsetDateTime")
+    public void convertTest() {
+        OffsetDateTime dateTime = OffsetDateTime.of(2023, 5, 14, 12, 30, 45, 123_000_000, ZoneOffset.UTC);
+
+        assertEquals(dateTime, Timestamps.toOffsetDateTime(Timestamps.toEpochMillis(dateTime)));
+        assertEquals(Timestamps.MISSING, Timestamps.toEpochMillis(null));
+        assertNull(Timestamps.toOffsetDateTime(Timestamps.MISSING));
+        assertNotNull(Timestamps.toOffsetDateTime(0L));
+    }
+
+    private static long epochMillis(String text) {
+        return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+    }
+
+}
@@ -0,0 +1,161 @@
+package io.github.yagato.holodexwrapper.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.yagato.holodexwrapper.cache.CachePolicy;
+import io.github.yagato.holodexwrapper.cache.HeapCache;
+import io.github.yagato.holodexwrapper.cache.HolodexCache;
+import io.github.yagato.holodexwrapper.model.Channel;
+import io.github.yagato.holodexwrapper.model.Video;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTest {
+
+    private static final CachePolicy POLICY = CachePolicy.ttl(Duration.ofMinutes(5));
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Restore the cached responses and the identity map")
+    public void roundTripTest() throws Exception {
+        Path file = directory.resolve("snapshot");
+        EntityStore store = new EntityStore();
+        Video video = store.resolve(video("abc", channel("UC1")));
+        HolodexCache cache = new HolodexCache(new HeapCache(), null);
+        cache.put(POLICY, "videos/abc", new byte[0], 0, video);
+
+        Snapshot.write(file, cache, store, objectMapper);
+
+        EntityStore restoredStore = new EntityStore();
+        HolodexCache restoredCache = new HolodexCache(new HeapCache(), null);
+
+        assertTrue(Snapshot.read(file, restoredCache, restoredStore, objectMapper));
+
+        assertEquals(video, restoredStore.getVideo("abc"));
+        assertEquals(video.getChannel(), restoredStore.getChannel("UC1"));
+        assertEquals(video.getAvailableAt(), restoredStore.getVideo("abc").getAvailableAt());
+
+        // Cached responses are decoded like fresh ones, by the client's mapper
+        Video cached = restoredCache.get(POLICY, "videos/abc", bytes -> objectMapper.readValue(bytes, Video.class));
+        assertEquals(video.getTitle(), cached.getTitle());
+        assertEquals(video.getChannel(), cached.getChannel());
+        assertTrue(video.getAvailableAt().isEqual(cached.getAvailableAt()));
+
+        // Nothing is left behind next to the snapshot
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Report a missing snapshot")
+    public void missingTest() throws Exception {
+        assertFalse(Snapshot.read(directory.resolve("snapshot"), null, new EntityStore(), objectMapper));
+    }
+
+    @Test
+    @DisplayName("Reject files that aren't snapshots")
+    public void corruptTest() throws Exception {
+        Path file = directory.resolve("snapshot");
+        Snapshot.write(file, null, new EntityStore(), objectMapper);
+
+        byte[] valid = Files.readAllBytes(file);
+
+        Files.write(file, new byte[]{'J', 'U', 'N', 'K', 0, 0, 0, 2});
+        assertThrows(IOException.class, () -> Snapshot.read(file, null, new EntityStore(), objectMapper));
+
+        Files.write(file, Arrays.copyOf(valid, valid.length / 2 + 4));
+        assertThrows(IOException.class, () -> Snapshot.read(file, null, new EntityStore(), objectMapper));
+    }
+
+    @Test
+    @DisplayName("Reject snapshots of another version")
+    public void versionTest() throws Exception {
+        Path file = directory.resolve("snapshot");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x48445853);
+            out.writeInt(1);
+        }
+
+        Files.write(file, bytes.toByteArray());
+
+        IOException e = assertThrows(IOException.class,
+                () -> Snapshot.read(file, null, new EntityStore(), objectMapper));
+        assertTrue(e.getMessage().contains("version 1"));
+    }
+
+    @Test
+    @DisplayName("Serialize cached entities under their lock")
+    public void lockTest() throws Exception {
+        Path file = directory.resolve("snapshot");
+        EntityStore store = new EntityStore();
+        Video video = store.resolve(video("abc", channel("UC1")));
+        HolodexCache cache = new HolodexCache(new HeapCache(), null);
+        cache.put(POLICY, "videos/abc", new byte[0], 0, video);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> write;
+
+            // Stands in for a merge of the channel in progress
+            synchronized (video.getChannel()) {
+                write = executor.submit(() -> {
+                    Snapshot.write(file, cache, null, objectMapper);
+                    return null;
+                });
+
+                assertThrows(TimeoutException.class, () -> write.get(200, TimeUnit.MILLISECONDS));
+            }
+
+            write.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Channel channel(String id) {
+        Channel channel = new Channel();
+        channel.setId(id);
+        channel.setName("Channel " + id);
+
+        return channel;
+    }
+
+    private static Video video(String id, Channel channel) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTitle("Video " + id);
+        video.setAvailableAt(OffsetDateTime.parse("2023-05-14T12:00:00+09:00"));
+        video.setChannel(channel);
+
+        return video;
+    }
+
+}